@@ -4,7 +4,12 @@ CREATE DATABASE IF NOT EXISTS ocean_resort_db;
 USE ocean_resort_db;
 
 -- Drop existing tables if they exist (for clean setup)
+DROP TABLE IF EXISTS audit_log_archive;
 DROP TABLE IF EXISTS audit_log;
+DROP TABLE IF EXISTS reservations_archive;
+DROP TABLE IF EXISTS reservation_tombstones;
+DROP TABLE IF EXISTS reservation_sequence;
+DROP TABLE IF EXISTS import_checkpoints;
 DROP TABLE IF EXISTS reservations;
 DROP TABLE IF EXISTS users;
 
@@ -23,6 +28,7 @@ CREATE TABLE reservations (
     check_out_date DATE NOT NULL,
     total_cost BIGINT NOT NULL,
     manual_status VARCHAR(20) NULL,  -- NULL for auto-detect, or 'Checked-Out'/'Cancelled'
+    version INT NOT NULL DEFAULT 0,  -- bumped on every update, for optimistic concurrency
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
@@ -30,7 +36,20 @@ CREATE TABLE reservations (
     INDEX idx_guest_name (guest_name),
     INDEX idx_check_in (check_in_date),
     INDEX idx_check_out (check_out_date),
-    INDEX idx_status (manual_status)
+    INDEX idx_status (manual_status),
+    INDEX idx_updated_at (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ============================================
+-- Table: reservation_tombstones
+-- Records deleted reservations so terminals can
+-- drop them during incremental (delta) sync
+-- ============================================
+CREATE TABLE reservation_tombstones (
+    reservation_no VARCHAR(50) PRIMARY KEY,
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    INDEX idx_deleted_at (deleted_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ============================================
@@ -50,6 +69,29 @@ CREATE TABLE users (
     INDEX idx_username (username)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- ============================================
+-- Table: reservation_sequence
+-- Next free reservation number; terminals lease
+-- blocks of numbers from it
+-- ============================================
+CREATE TABLE reservation_sequence (
+    name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO reservation_sequence (name, next_value) VALUES ('reservation', 4);
+
+-- ============================================
+-- Table: import_checkpoints
+-- Rows of a CSV import already committed, so an
+-- interrupted import resumes where it stopped
+-- ============================================
+CREATE TABLE import_checkpoints (
+    import_key VARCHAR(255) PRIMARY KEY,
+    rows_done BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- ============================================
 -- Table: audit_log
 -- Tracks all changes to reservations
@@ -57,7 +99,7 @@ CREATE TABLE users (
 CREATE TABLE audit_log (
     id INT PRIMARY KEY AUTO_INCREMENT,
     reservation_no VARCHAR(50),
-    action VARCHAR(50) NOT NULL,  -- CREATE, UPDATE, DELETE, CHECK_OUT, CANCEL
+    action VARCHAR(50) NOT NULL,  -- CREATE, UPDATE, DELETE, CHECK_OUT, CANCEL, BULK_IMPORT
     performed_by VARCHAR(50),
     action_details TEXT,
     performed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -67,6 +109,71 @@ CREATE TABLE audit_log (
     INDEX idx_action (action)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- ============================================
+-- Table: reservations_archive
+-- Stays that checked out more than a year ago,
+-- moved out of reservations so terminals only
+-- load the working set. One partition per
+-- check-out year; ids keep their original values
+-- ============================================
+CREATE TABLE reservations_archive (
+    id INT NOT NULL,
+    reservation_no VARCHAR(50) NOT NULL,
+    guest_name VARCHAR(100) NOT NULL,
+    address VARCHAR(255),
+    contact VARCHAR(50) NOT NULL,
+    room_type ENUM('Single', 'Double', 'Suite') NOT NULL,
+    check_in_date DATE NOT NULL,
+    check_out_date DATE NOT NULL,
+    total_cost BIGINT NOT NULL,
+    manual_status VARCHAR(20) NULL,
+    version INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    PRIMARY KEY (id, check_out_date),
+    INDEX idx_archive_reservation_no (reservation_no),
+    INDEX idx_archive_check_out (check_out_date, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+PARTITION BY RANGE (YEAR(check_out_date)) (
+    PARTITION p2024 VALUES LESS THAN (2025),
+    PARTITION p2025 VALUES LESS THAN (2026),
+    PARTITION p2026 VALUES LESS THAN (2027),
+    PARTITION p2027 VALUES LESS THAN (2028),
+    PARTITION p2028 VALUES LESS THAN (2029),
+    PARTITION p2029 VALUES LESS THAN (2030),
+    PARTITION p2030 VALUES LESS THAN (2031),
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- ============================================
+-- Table: audit_log_archive
+-- audit_log rows of archived reservations,
+-- one partition per year
+-- ============================================
+CREATE TABLE audit_log_archive (
+    id INT NOT NULL,
+    reservation_no VARCHAR(50),
+    action VARCHAR(50) NOT NULL,
+    performed_by VARCHAR(50),
+    action_details TEXT,
+    performed_at DATETIME NOT NULL,
+    
+    PRIMARY KEY (id, performed_at),
+    INDEX idx_archive_audit_reservation (reservation_no)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+PARTITION BY RANGE (YEAR(performed_at)) (
+    PARTITION p2024 VALUES LESS THAN (2025),
+    PARTITION p2025 VALUES LESS THAN (2026),
+    PARTITION p2026 VALUES LESS THAN (2027),
+    PARTITION p2027 VALUES LESS THAN (2028),
+    PARTITION p2028 VALUES LESS THAN (2029),
+    PARTITION p2029 VALUES LESS THAN (2030),
+    PARTITION p2030 VALUES LESS THAN (2031),
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
 -- ============================================
 -- Insert Default Admin User
 -- Username: admin, Password: 123
@@ -0,0 +1,170 @@
+package resort;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the desktop's database work off the event dispatch thread.
+ *
+ * Every call returns a CompletableFuture that completes on the event
+ * thread, so callers can update Swing components straight from
+ * whenComplete/thenAccept. A call made while an identical one is still
+ * running (two REFRESH clicks, a double-clicked CHECK OUT) gets the
+ * running call's future instead of starting another. A busy listener is
+ * told when work starts and when the last call finishes.
+ */
+public class AsyncRepository {
+
+    private static final int WORKERS = 4;
+
+    private final ReservationService service;
+    private final ReservationStore reservations;
+    private final ReservationSync sync;
+    private final ExecutorService executor = Executors.newFixedThreadPool(WORKERS, r -> {
+        Thread t = new Thread(r, "db-worker");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, CompletableFuture<?>> inFlight = new HashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile Consumer<Boolean> busyListener = busy -> { };
+
+    public AsyncRepository(ReservationService service, ReservationSync sync) {
+        this.service = service;
+        this.reservations = service.getStore();
+        this.sync = sync;
+    }
+
+    /** Called on the event thread with true when work starts and false when all of it is done. */
+    public void setBusyListener(Consumer<Boolean> listener) {
+        busyListener = listener;
+    }
+
+    public boolean isUsingDatabase() {
+        return service.isUsingDatabase();
+    }
+
+    /** Merge other desks' changes into the store; returns the rows changed, or -1. */
+    public CompletableFuture<Integer> refresh() {
+        if (!service.isUsingDatabase()) return CompletableFuture.completedFuture(0);
+        return submit("refresh", () -> sync.sync(reservations));
+    }
+
+    public CompletableFuture<Reservation> create(String resNo, String name, String address, String contact,
+                                                 String roomType, LocalDate checkIn, LocalDate checkOut) {
+        return submit(null, () -> service.create(resNo, name, address, contact, roomType, checkIn, checkOut));
+    }
+
+    /**
+     * A repeat of the same change shares the running call. A different
+     * change to the same reservation (CANCEL right after CHECK OUT) is
+     * refused until the first one finishes, rather than racing it.
+     */
+    public CompletableFuture<Void> changeStatus(Reservation r, String status) {
+        String prefix = "status:" + r.getResNo() + ":";
+        synchronized (inFlight) {
+            for (String key : inFlight.keySet()) {
+                if (key.startsWith(prefix) && !key.equals(prefix + status)) {
+                    CompletableFuture<Void> refused = new CompletableFuture<>();
+                    refused.completeExceptionally(new IllegalStateException(
+                            "A status change for " + r.getResNo() + " is still being saved. Please try again."));
+                    return refused;
+                }
+            }
+            return submit(prefix + status, () -> {
+                service.changeStatus(r, status);
+                return null;
+            });
+        }
+    }
+
+    public CompletableFuture<Void> delete(String resNo) {
+        return submit("delete:" + resNo, () -> {
+            service.delete(resNo);
+            return null;
+        });
+    }
+
+    public CompletableFuture<String> nextReservationId() {
+        return submit("next-id", service::nextReservationId);
+    }
+
+    /** An archived or cold reservation for an invoice reprint, or null if there is none. */
+    public CompletableFuture<Reservation> findArchived(String resNo) {
+        if (!service.isUsingDatabase()) return CompletableFuture.completedFuture(null);
+        return submit("archived:" + resNo, () -> ReservationArchive.find(resNo));
+    }
+
+    /** The user's role, or null if the credentials are wrong. */
+    public CompletableFuture<String> userRole(String username, String password) {
+        return submit(null, () -> DatabaseHandler.getUserRole(username, password));
+    }
+
+    /**
+     * Run task on the worker pool. With a non-null key, a call arriving
+     * while the same key is running shares its result.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(String key, Callable<T> task) {
+        CompletableFuture<T> result;
+        synchronized (inFlight) {
+            if (key != null) {
+                CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.get(key);
+                if (existing != null) return existing;
+            }
+            result = new CompletableFuture<>();
+            if (key != null) inFlight.put(key, result);
+        }
+        if (running.getAndIncrement() == 0) onEdt(() -> busyListener.accept(true));
+
+        executor.execute(() -> {
+            T value = null;
+            Throwable error = null;
+            try {
+                value = task.call();
+            } catch (Throwable t) {
+                error = t;
+            }
+            T finalValue = value;
+            Throwable finalError = error;
+            // Completing on the event thread makes dependent stages run there too
+            SwingUtilities.invokeLater(() -> {
+                if (key != null) {
+                    synchronized (inFlight) {
+                        inFlight.remove(key);
+                    }
+                }
+                if (running.decrementAndGet() == 0) busyListener.accept(false);
+                if (finalError == null) {
+                    result.complete(finalValue);
+                } else {
+                    result.completeExceptionally(finalError);
+                }
+            });
+        });
+        return result;
+    }
+
+    private static void onEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) r.run();
+        else SwingUtilities.invokeLater(r);
+    }
+
+    /** The exception a task threw, unwrapped from the future's wrapper. */
+    public static Throwable cause(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,152 @@
+package resort;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit_log rows in the background.
+ *
+ * Entries go into a bounded queue that a single writer thread drains in
+ * JDBC batches. When the queue is full the caller waits briefly and then
+ * writes the entry itself, so a stalled database slows callers down instead
+ * of growing memory without limit.
+ */
+public class AuditLogWriter {
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int BATCH_SIZE = 200;
+    private static final long OFFER_TIMEOUT_MS = 200;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_log (reservation_no, action, performed_by, action_details) VALUES (?, ?, ?, ?)";
+
+    private static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong failed = new AtomicLong();
+    private static final AtomicLong writtenByCaller = new AtomicLong();
+
+    private static Thread writer = null;
+    private static volatile boolean running = false;
+
+    private static final class Entry {
+        final String reservationNo, action, performedBy, details;
+
+        Entry(String reservationNo, String action, String performedBy, String details) {
+            this.reservationNo = reservationNo;
+            this.action = action;
+            this.performedBy = performedBy;
+            this.details = details;
+        }
+    }
+
+    /**
+     * Queue an audit entry. Returns immediately unless the queue is full.
+     */
+    public static void submit(String reservationNo, String action, String performedBy, String details) {
+        Entry entry = new Entry(reservationNo, action, performedBy, details);
+        if (ensureStarted()) {
+            try {
+                if (queue.offer(entry, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Back-pressure: queue is full (or writer stopped), write on the caller's thread
+        writtenByCaller.incrementAndGet();
+        List<Entry> single = new ArrayList<>(1);
+        single.add(entry);
+        writeBatch(single);
+    }
+
+    private static synchronized boolean ensureStarted() {
+        if (writer == null) {
+            running = true;
+            writer = new Thread(AuditLogWriter::drainLoop, "audit-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        return running;
+    }
+
+    private static void drainLoop() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; the loop condition drains what is left
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void writeBatch(List<Entry> batch) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                failed.addAndGet(batch.size());
+                return;
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                for (Entry e : batch) {
+                    pstmt.setString(1, e.reservationNo);
+                    pstmt.setString(2, e.action);
+                    pstmt.setString(3, e.performedBy);
+                    pstmt.setString(4, e.details);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                written.addAndGet(batch.size());
+            }
+        } catch (SQLException e) {
+            failed.addAndGet(batch.size());
+            System.err.println("WARNING: Failed to log " + batch.size() + " action(s)");
+        }
+    }
+
+    /**
+     * Stop the writer and flush everything still queued. Called from the
+     * window-closing handler before the connection pool is shut down.
+     */
+    public static void shutdown() {
+        Thread t;
+        synchronized (AuditLogWriter.class) {
+            running = false;
+            t = writer;
+        }
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Anything the writer did not get to is written here
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            writeBatch(rest);
+        }
+        System.out.println("✓ Audit log flushed (" + written.get() + " written, "
+                + writtenByCaller.get() + " under back-pressure, " + failed.get() + " failed)");
+    }
+
+    public static int getQueueDepth() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,268 @@
+package resort;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Occupancy forecast for the coming HORIZON_DAYS nights.
+ *
+ * Starts from what is on the books for each future night (from the store's
+ * occupancy cube) and scales it by a pickup ratio: for past nights, how
+ * many room nights were finally sold for every room night already booked
+ * the same number of days ahead. A night 30 days out with 10 rooms on the
+ * books and a 30-day ratio of 1.4 is forecast at 14 rooms, capped at the
+ * number of rooms.
+ *
+ * The ratios come from booking dates (created_at), over the last
+ * HISTORY_DAYS nights split into monthly buckets that are counted in
+ * parallel. Each bucket only produces a small histogram of room nights by
+ * booking lead time, so memory does not grow with the length of the
+ * history. Bookings with no recorded date and cancelled bookings are left
+ * out. Callers get the curve again after every bucket so a report can be
+ * redrawn as the history is read.
+ */
+public class BookingForecast {
+
+    public static final int HORIZON_DAYS = 90;
+    public static final int HISTORY_DAYS = 730;
+    private static final int WORKERS = 4;
+    private static final String[] ROOM_TYPES = OccupancyCube.ROOM_TYPES;
+
+    private final ReservationStore reservations;
+    private final boolean useDatabase;
+
+    /** One future night. */
+    public static final class Night {
+        public final LocalDate date;
+        public final int leadDays;
+        public final long onTheBooks;
+        public final double forecast;
+        public final long rooms;
+
+        Night(LocalDate date, int leadDays, long onTheBooks, double forecast, long rooms) {
+            this.date = date;
+            this.leadDays = leadDays;
+            this.onTheBooks = onTheBooks;
+            this.forecast = forecast;
+            this.rooms = rooms;
+        }
+
+        public double onTheBooksPercent() {
+            return rooms == 0 ? 0 : 100.0 * onTheBooks / rooms;
+        }
+
+        public double forecastPercent() {
+            return rooms == 0 ? 0 : 100.0 * forecast / rooms;
+        }
+
+        /** Room nights still expected to be booked. */
+        public double pickup() {
+            return forecast - onTheBooks;
+        }
+    }
+
+    /**
+     * Room nights of past stays by how many days before the night they were
+     * booked, per room type. Leads of HORIZON_DAYS or more share the last slot.
+     */
+    public static final class PickupCurve {
+        private final long[][] byLead = new long[ROOM_TYPES.length][HORIZON_DAYS + 1];
+        private int bucketsDone = 0;
+        private int buckets = 0;
+
+        void add(int type, long lead, long roomNights) {
+            byLead[type][(int) Math.max(0, Math.min(HORIZON_DAYS, lead))] += roomNights;
+        }
+
+        synchronized void merge(PickupCurve other) {
+            for (int t = 0; t < ROOM_TYPES.length; t++) {
+                for (int l = 0; l <= HORIZON_DAYS; l++) {
+                    byLead[t][l] += other.byLead[t][l];
+                }
+            }
+            bucketsDone++;
+        }
+
+        /**
+         * Final room nights per room night on the books leadDays ahead, or
+         * 1.0 when the history has nothing booked that far ahead.
+         */
+        public synchronized double ratio(String roomType, int leadDays) {
+            int type = indexOf(roomType);
+            if (type < 0) return 1.0;
+            long total = 0, booked = 0;
+            for (int l = 0; l <= HORIZON_DAYS; l++) {
+                total += byLead[type][l];
+                if (l >= leadDays) booked += byLead[type][l];
+            }
+            return booked == 0 ? 1.0 : (double) total / booked;
+        }
+
+        public synchronized int getBucketsDone() {
+            return bucketsDone;
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public synchronized boolean isComplete() {
+            return bucketsDone == buckets;
+        }
+    }
+
+    public BookingForecast(ReservationStore reservations, boolean useDatabase) {
+        this.reservations = reservations;
+        this.useDatabase = useDatabase;
+    }
+
+    /**
+     * Build the pickup curve from the history, one month per task. progress
+     * (may be null) is called after each month with the curve so far, on
+     * the worker thread that finished it.
+     */
+    public PickupCurve pickupCurve(Consumer<PickupCurve> progress) {
+        LocalDate today = StatusEngine.today();
+        LocalDate first = today.minusDays(HISTORY_DAYS);
+        List<LocalDate[]> months = new ArrayList<>();
+        for (LocalDate start = first; start.isBefore(today); ) {
+            LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
+            if (!end.isBefore(today)) end = today.minusDays(1);
+            months.add(new LocalDate[]{start, end});
+            start = end.plusDays(1);
+        }
+
+        PickupCurve curve = new PickupCurve();
+        curve.buckets = months.size();
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "forecast-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            // Most recent months first: they say most about current booking habits
+            for (int i = months.size() - 1; i >= 0; i--) {
+                LocalDate[] month = months.get(i);
+                tasks.add(CompletableFuture.supplyAsync(() -> countMonth(month[0], month[1]), executor)
+                        .thenAccept(part -> {
+                            curve.merge(part);
+                            if (progress != null) progress.accept(curve);
+                        }));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        return curve;
+    }
+
+    /** Room nights from "from" through "to" by booking lead, from the store or the database. */
+    private PickupCurve countMonth(LocalDate from, LocalDate to) {
+        PickupCurve part = new PickupCurve();
+        if (useDatabase) {
+            countMonthFromDatabase(from, to, part);
+            return part;
+        }
+        long first = from.toEpochDay(), last = to.toEpochDay();
+        for (Reservation r : reservations.staysBetween(from, to)) {
+            int type = indexOf(r.getRoomType());
+            if (type < 0 || r.getBookedOn() == null || "Cancelled".equals(r.getStatus())) continue;
+            countStay(part, type, r.getCheckIn().toEpochDay(), r.getCheckOut().toEpochDay(),
+                    r.getBookedOn().toEpochDay(), first, last);
+        }
+        return part;
+    }
+
+    private static void countMonthFromDatabase(LocalDate from, LocalDate to, PickupCurve part) {
+        // Stays that checked out before the hot cutoff may already be archived
+        boolean withArchive = from.isBefore(ReservationArchive.hotCutoff()) && ReservationArchive.isAvailable();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            countMonthFromTable(conn, "reservations", from, to, part);
+            if (withArchive) countMonthFromTable(conn, "reservations_archive", from, to, part);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read booking history for " + from + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void countMonthFromTable(Connection conn, String table, LocalDate from, LocalDate to,
+                                            PickupCurve part) throws SQLException {
+        String sql = "SELECT room_type, check_in_date, check_out_date, created_at FROM " + table
+                + " WHERE check_in_date <= ? AND check_out_date > ? AND created_at IS NOT NULL "
+                + "AND (manual_status IS NULL OR manual_status <> 'Cancelled')";
+        long first = from.toEpochDay(), last = to.toEpochDay();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row instead of buffering the month
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            pstmt.setDate(1, java.sql.Date.valueOf(to));
+            pstmt.setDate(2, java.sql.Date.valueOf(from));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int type = indexOf(rs.getString(1));
+                    if (type < 0) continue;
+                    countStay(part, type, rs.getObject(2, LocalDate.class).toEpochDay(),
+                            rs.getObject(3, LocalDate.class).toEpochDay(),
+                            rs.getTimestamp(4).toLocalDateTime().toLocalDate().toEpochDay(), first, last);
+                }
+            }
+        }
+    }
+
+    /** Add the stay's nights that fall within [first, last]. */
+    private static void countStay(PickupCurve part, int type, long checkIn, long checkOut, long bookedOn,
+                                  long first, long last) {
+        long start = Math.max(checkIn, first);
+        long end = Math.min(checkOut - 1, last);
+        for (long night = start; night <= end; night++) {
+            part.add(type, night - bookedOn, 1);
+        }
+    }
+
+    /**
+     * On-the-books and forecast rooms for the next HORIZON_DAYS nights.
+     * roomType null means all room types, each scaled by its own ratios.
+     */
+    public List<Night> forecast(PickupCurve curve, String roomType) {
+        OccupancyCube cube = reservations.getOccupancyCube();
+        LocalDate today = StatusEngine.today();
+        List<Night> nights = new ArrayList<>(HORIZON_DAYS);
+        for (int lead = 0; lead < HORIZON_DAYS; lead++) {
+            LocalDate night = today.plusDays(lead);
+            long booked = 0, rooms = 0;
+            double expected = 0;
+            for (String type : ROOM_TYPES) {
+                if (roomType != null && !roomType.equals(type)) continue;
+                long onBooks = cube.range(night, night, type).roomNights;
+                int capacity = RoomInventory.capacityOf(type);
+                booked += onBooks;
+                rooms += capacity;
+                // Never forecast fewer rooms than are already booked
+                expected += Math.max(onBooks, Math.min(capacity, onBooks * curve.ratio(type, lead)));
+            }
+            nights.add(new Night(night, lead, booked, expected, rooms));
+        }
+        return nights;
+    }
+
+    private static int indexOf(String roomType) {
+        for (int i = 0; i < ROOM_TYPES.length; i++) {
+            if (ROOM_TYPES[i].equals(roomType)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,98 @@
+package resort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Reservation change notifications for screens that show derived data.
+ *
+ * Every store change, whether made on this desk or pulled in from the
+ * database, is collected here by reservation number. Subscribers are told
+ * once per event-dispatch turn which reservations changed, so a burst of
+ * changes costs one repaint rather than one per row.
+ *
+ * In database mode a tailer polls for rows changed or deleted by other
+ * desks (through ReservationSync's updated_at / tombstone delta), so
+ * screens stay current without the REFRESH button.
+ */
+public class ChangeFeed implements ReservationStore.Listener {
+
+    /** Called on the event dispatch thread. */
+    public interface Subscriber {
+        void reservationsChanged(Set<String> resNos);
+    }
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<String> pending = new HashSet<>();
+    private boolean deliveryScheduled = false;
+    private ScheduledExecutorService tailer = null;
+
+    public ChangeFeed(ReservationStore store) {
+        store.addListener(this);
+    }
+
+    public void subscribe(Subscriber s) {
+        subscribers.add(s);
+    }
+
+    public void unsubscribe(Subscriber s) {
+        subscribers.remove(s);
+    }
+
+    @Override
+    public void reservationChanged(Reservation r, ReservationStore.Snapshot before, ReservationStore.Snapshot after) {
+        if (subscribers.isEmpty()) return;
+        synchronized (pending) {
+            pending.add(r.getResNo());
+            if (deliveryScheduled) return;
+            deliveryScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::deliver);
+    }
+
+    private void deliver() {
+        Set<String> changed;
+        synchronized (pending) {
+            changed = new HashSet<>(pending);
+            pending.clear();
+            deliveryScheduled = false;
+        }
+        for (Subscriber s : subscribers) {
+            s.reservationsChanged(changed);
+        }
+    }
+
+    /**
+     * Poll the database for other desks' changes every intervalMs and merge
+     * them into the store, which feeds them back through this feed.
+     */
+    public synchronized void startTailing(ReservationSync sync, ReservationStore store, long intervalMs) {
+        if (tailer != null) return;
+        tailer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-feed-tailer");
+            t.setDaemon(true);
+            return t;
+        });
+        tailer.scheduleWithFixedDelay(() -> {
+            try {
+                sync.sync(store);
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Change feed poll failed");
+                e.printStackTrace();
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopTailing() {
+        if (tailer != null) {
+            tailer.shutdownNow();
+            tailer = null;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package resort;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of physical MySQL connections.
+ *
+ * Callers receive a proxy whose close() hands the physical connection back
+ * to the pool, so existing try-with-resources code keeps working unchanged.
+ * abort() instead closes the physical connection and frees its slot, for a
+ * session left in a state the next borrower must not inherit.
+ * A background housekeeper evicts idle connections above the minimum size,
+ * tops the pool back up to the minimum and reports leaked connections.
+ */
+public class ConnectionPool {
+
+    private final String url, user, password;
+    private final int minSize, maxSize;
+    private final long idleTimeoutMs, leakThresholdMs, borrowTimeoutMs;
+
+    // Connections used within this window are trusted without a ping
+    private static final long VALIDATION_WINDOW_MS = 1000;
+    private static final int VALIDATION_TIMEOUT_SEC = 2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Map<PooledConnection, Throwable> borrowed = new ConcurrentHashMap<>();
+    private int totalConnections = 0;
+    private boolean shutdown = false;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowNanos = new AtomicLong();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize,
+                          long idleTimeoutMs, long leakThresholdMs, long borrowTimeoutMs) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 5, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout if the pool is
+     * exhausted. The returned connection must be closed to give it back.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+        while (true) {
+            PooledConnection pc = null;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (true) {
+                    if (shutdown) {
+                        throw new SQLException("Connection pool has been shut down");
+                    }
+                    pc = idle.pollFirst();
+                    if (pc != null) break;
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        borrowTimeouts.incrementAndGet();
+                        throw new SQLException("Timed out after " + borrowTimeoutMs
+                                + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    pc = new PooledConnection(DriverManager.getConnection(url, user, password));
+                    connectionsCreated.incrementAndGet();
+                } catch (SQLException e) {
+                    releaseSlot();
+                    throw e;
+                }
+            } else if (!isUsable(pc)) {
+                discard(pc);
+                continue;
+            }
+
+            pc.lastUsed = System.currentTimeMillis();
+            borrowed.put(pc, new Throwable("Connection borrowed here"));
+            recordBorrow(System.nanoTime() - start);
+            return pc.newHandle();
+        }
+    }
+
+    /**
+     * Validation-on-borrow. Connections returned very recently are assumed
+     * healthy so hot paths don't pay a ping per statement.
+     */
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) return false;
+            if (System.currentTimeMillis() - pc.lastUsed < VALIDATION_WINDOW_MS) return true;
+            return pc.physical.isValid(VALIDATION_TIMEOUT_SEC);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowCount.incrementAndGet();
+        borrowNanos.addAndGet(nanos);
+        maxBorrowNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Called when a handle is closed by the application. */
+    private void giveBack(PooledConnection pc) {
+        borrowed.remove(pc);
+        try {
+            if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(pc);
+            return;
+        }
+        pc.lastUsed = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (shutdown) {
+                closeQuietly(pc);
+                totalConnections--;
+                return;
+            }
+            idle.offerFirst(pc);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        borrowed.remove(pc);
+        closeQuietly(pc);
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(PooledConnection pc) {
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            // Already broken, nothing else to do
+        }
+        connectionsClosed.incrementAndGet();
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction above the minimum size
+        lock.lock();
+        try {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsed > idleTimeoutMs) {
+                    it.remove();
+                    totalConnections--;
+                    closeQuietly(pc);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Leak detection
+        for (Map.Entry<PooledConnection, Throwable> e : borrowed.entrySet()) {
+            PooledConnection pc = e.getKey();
+            if (!pc.leakReported && now - pc.lastUsed > leakThresholdMs) {
+                pc.leakReported = true;
+                leaksDetected.incrementAndGet();
+                System.err.println("WARNING: Database connection held for more than "
+                        + leakThresholdMs + " ms without being closed (possible leak)");
+                e.getValue().printStackTrace();
+            }
+        }
+
+        // Keep the minimum number of warm connections, but only once the
+        // database has proven reachable so an offline server isn't hammered
+        if (connectionsCreated.get() > 0) {
+            while (true) {
+                lock.lock();
+                try {
+                    if (shutdown || totalConnections >= minSize) break;
+                    totalConnections++;
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    PooledConnection pc = new PooledConnection(DriverManager.getConnection(url, user, password));
+                    connectionsCreated.incrementAndGet();
+                    giveBack(pc);
+                } catch (SQLException ex) {
+                    releaseSlot();
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Close every idle connection and refuse further borrows. */
+    public void shutdown() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            shutdown = true;
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                closeQuietly(pc);
+                totalConnections--;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getBorrowTimeouts() { return borrowTimeouts.get(); }
+    public long getLeaksDetected() { return leaksDetected.get(); }
+
+    /** Average time spent in borrow(), in microseconds. */
+    public long getAverageBorrowMicros() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(borrowNanos.get() / count);
+    }
+
+    public long getMaxBorrowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxBorrowNanos.get());
+    }
+
+    public void printStats() {
+        System.out.println("========================================");
+        System.out.println("Connection Pool Statistics:");
+        System.out.println("========================================");
+        System.out.println("Size: " + getTotalConnections() + " (idle " + getIdleConnections()
+                + ", active " + getActiveConnections() + ", min " + minSize + ", max " + maxSize + ")");
+        System.out.println("Borrows: " + getBorrowCount() + " (avg " + getAverageBorrowMicros()
+                + " µs, max " + getMaxBorrowMicros() + " µs, timeouts " + getBorrowTimeouts() + ")");
+        System.out.println("Connections created: " + connectionsCreated.get() + ", closed: " + connectionsClosed.get());
+        System.out.println("Leaks detected: " + getLeaksDetected());
+        System.out.println("========================================");
+    }
+
+    /** A physical connection owned by the pool. */
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean leakReported = false;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Logical connection given to callers. close() returns the physical
+     * connection to the pool and abort() discards it; any use after either
+     * fails like a real closed connection would.
+     */
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pc;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (pc != null) {
+                        PooledConnection owner = pc;
+                        pc = null;
+                        giveBack(owner);
+                    }
+                    return null;
+                case "abort":
+                    if (pc != null) {
+                        PooledConnection owner = pc;
+                        pc = null;
+                        discard(owner);
+                    }
+                    return null;
+                case "isClosed":
+                    return pc == null || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pc == null ? "closed" : pc.physical) + "]";
+                default:
+                    if (pc == null) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    try {
+                        return method.invoke(pc.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -16,6 +16,23 @@ public class Constants {
     public static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 28);
     public static final Font PLAIN_FONT = new Font("SansSerif", Font.PLAIN, 14);
     
+    // Rooms available per type
+    public static final int SINGLE_ROOMS = 20;
+    public static final int DOUBLE_ROOMS = 15;
+    public static final int SUITE_ROOMS = 5;
+    
     // File
-    public static final String FILE_NAME = "reservations.dat";
+    public static final String FILE_NAME = "reservations.dat"; // legacy serialized map, imported once
+    public static final String JOURNAL_FILE = "reservations.journal";
+    public static final String SNAPSHOT_FILE = "reservations.snapshot";
+    public static final String RATES_FILE = "rates.properties";
+    
+    // How often other desks' changes are pulled from the database
+    public static final long CHANGE_POLL_MS = 3000;
+    
+    // Stays that checked out longer ago than this move to reservations_archive
+    public static final int ARCHIVE_AFTER_DAYS = 365;
+    
+    // Server mode (--server)
+    public static final int SERVER_PORT = 8085;
 }
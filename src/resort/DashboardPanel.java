@@ -2,19 +2,21 @@ package resort;
 
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.util.Set;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import java.util.HashMap;
 import resort.CustomComponents.*;
 
-public class DashboardPanel extends JPanel {
+public class DashboardPanel extends JPanel implements ChangeFeed.Subscriber {
     
-    private JLabel totalRevenueLbl, totalBookingsLbl, activeBookingsLbl;
-    private HashMap<String, Reservation> reservations;
+    private JLabel totalRevenueLbl, totalBookingsLbl, activeBookingsLbl, scopeLbl;
+    private ReservationStore reservations;
+    private boolean useDatabase;
     private ActionListener navigationListener;
     
-    public DashboardPanel(HashMap<String, Reservation> reservations, ActionListener navListener) {
+    public DashboardPanel(ReservationStore reservations, boolean useDatabase, ActionListener navListener) {
         this.reservations = reservations;
+        this.useDatabase = useDatabase;
         this.navigationListener = navListener;
         setupUI();
     }
@@ -27,6 +29,12 @@ public class DashboardPanel extends JPanel {
         title.setFont(Constants.TITLE_FONT); 
         title.setBounds(40, 40, 400, 40);
         add(title);
+        
+        // In DATABASE mode the totals only cover the hot working set
+        scopeLbl = new JLabel();
+        scopeLbl.setForeground(Color.GRAY);
+        scopeLbl.setBounds(40, 76, 800, 20);
+        add(scopeLbl);
 
         totalBookingsLbl = createStatCard("Total Bookings", "0", new Color(46, 204, 113), 40, 100);
         activeBookingsLbl = createStatCard("Active Bookings", "0", new Color(52, 152, 219), 320, 100);
@@ -77,13 +85,20 @@ public class DashboardPanel extends JPanel {
         return v;
     }
     
+    @Override
+    public void reservationsChanged(Set<String> resNos) {
+        // Totals are kept incrementally, so this is a few label updates
+        updateStats();
+    }
+    
     public void updateStats() {
-        totalBookingsLbl.setText(String.valueOf(reservations.size()));
-        long activeCount = reservations.values().stream()
-            .filter(r -> r.getStatus().equals("Active"))
-            .count();
-        activeBookingsLbl.setText(String.valueOf(activeCount));
-        long total = reservations.values().stream().mapToLong(Reservation::getTotalCost).sum();
-        totalRevenueLbl.setText(String.format("%,d", total));
+        ReservationStats stats = reservations.getStats();
+        totalBookingsLbl.setText(String.valueOf(stats.getTotalCount()));
+        activeBookingsLbl.setText(String.valueOf(stats.getCount("Active")));
+        totalRevenueLbl.setText(String.format("%,d", stats.getTotalRevenue()));
+        if(useDatabase) {
+            scopeLbl.setText("Stays checking out since " + ReservationArchive.hotCutoff() + " (last "
+                    + Constants.ARCHIVE_AFTER_DAYS + " days) and later. Older stays are archived.");
+        }
     }
-}
+}
\ No newline at end of file
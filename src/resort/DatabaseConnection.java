@@ -5,27 +5,26 @@ import java.sql.*;
 public class DatabaseConnection {
     
     // Database configuration
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/ocean_resort_db";
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/ocean_resort_db?rewriteBatchedStatements=true";
     private static final String DB_USER = "root";  
     private static final String DB_PASSWORD = "";  
     
-    private static Connection connection = null;
+    // Connection pool configuration
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_IDLE_TIMEOUT_MS = 5 * 60 * 1000;
+    private static final long POOL_LEAK_THRESHOLD_MS = 30 * 1000;
+    private static final long POOL_BORROW_TIMEOUT_MS = 10 * 1000;
+    
+    private static ConnectionPool pool = null;
     
     /**
      * Get database connection
-     * Creates new connection if none exists
+     * Borrows a pooled connection; closing it returns it to the pool
      */
     public static Connection getConnection() {
         try {
-            if (connection == null || connection.isClosed()) {
-                // Load MySQL JDBC Driver
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                
-                // Establish connection
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                System.out.println("✓ Database connected successfully!");
-            }
-            return connection;
+            return getPool().borrow();
         } catch (ClassNotFoundException e) {
             System.err.println("ERROR: MySQL JDBC Driver not found!");
             System.err.println("Please add mysql-connector-java.jar to your classpath");
@@ -42,18 +41,33 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * Get the shared connection pool, creating it on first use
+     */
+    public static synchronized ConnectionPool getPool() throws ClassNotFoundException {
+        if (pool == null) {
+            // Load MySQL JDBC Driver
+            Class.forName("com.mysql.cj.jdbc.Driver");
+            
+            pool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD,
+                    POOL_MIN_SIZE, POOL_MAX_SIZE,
+                    POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS, POOL_BORROW_TIMEOUT_MS);
+            System.out.println("✓ Connection pool created (min " + POOL_MIN_SIZE + ", max " + POOL_MAX_SIZE + ")");
+        }
+        return pool;
+    }
+    
     /**
      * Close database connection
+     * Shuts down the pool and closes all pooled connections
      */
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("✓ Database connection closed");
-            }
-        } catch (SQLException e) {
-            System.err.println("ERROR: Failed to close database connection");
-            e.printStackTrace();
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.printStats();
+            System.out.println("✓ Concurrency: " + DatabaseHandler.getConcurrencyStats());
+            pool.shutdown();
+            pool = null;
+            System.out.println("✓ Database connection closed");
         }
     }
     
@@ -61,8 +75,7 @@ public class DatabaseConnection {
      * Test database connection
      */
     public static boolean testConnection() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             if (conn != null && !conn.isClosed()) {
                 System.out.println("✓ Database connection test successful!");
                 return true;
@@ -78,8 +91,7 @@ public class DatabaseConnection {
      * Execute a test query
      */
     public static void printConnectionInfo() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             if (conn != null) {
                 DatabaseMetaData metaData = conn.getMetaData();
                 System.out.println("========================================");
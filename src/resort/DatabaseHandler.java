@@ -2,60 +2,214 @@ package resort;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DatabaseHandler {
     
+    /** Outcome of a version-checked update. */
+    public enum UpdateResult { UPDATED, CONFLICT, FAILED }
+    
+    /** Thrown by saveReservation when another terminal booked the last room first. */
+    public static class NoRoomException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public NoRoomException(String message) {
+            super(message);
+        }
+    }
+
+    /** The reservation number is already taken. */
+    public static class DuplicateReservationException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public DuplicateReservationException() {
+            super("Reservation ID already exists! Please use a unique ID.");
+        }
+    }
+    
+    // Seconds to wait for another terminal's booking of the same room type
+    private static final int BOOKING_LOCK_TIMEOUT = 10;
+    
+    // Optimistic concurrency: how often another desk got there first
+    private static final int MAX_MERGE_RETRIES = 3;
+    private static final AtomicLong versionedUpdates = new AtomicLong();
+    private static final AtomicLong conflictsDetected = new AtomicLong();
+    private static final AtomicLong conflictsMerged = new AtomicLong();
+    private static final AtomicLong conflictsRejected = new AtomicLong();
+    
+    /**
+     * Load the hot working set: every reservation except stays that checked
+     * out before the archive cutoff, which ReservationArchive reads on demand.
+     * Returns null if the database could not be read.
+     */
     public static HashMap<String, Reservation> loadAllReservations() {
         HashMap<String, Reservation> reservations = new HashMap<>();
-        String sql = "SELECT * FROM reservations";
+        String sql = "SELECT * FROM reservations WHERE check_out_date >= ?";
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String resNo = rs.getString("reservation_no");
-                String name = rs.getString("guest_name");
-                String address = rs.getString("address");
-                String contact = rs.getString("contact");
-                String roomType = rs.getString("room_type");
-                LocalDate checkIn = rs.getDate("check_in_date").toLocalDate();
-                LocalDate checkOut = rs.getDate("check_out_date").toLocalDate();
-                String manualStatus = rs.getString("manual_status");
-                Reservation r = new Reservation(resNo, name, address, contact, roomType, checkIn, checkOut);
-                if (manualStatus != null && !manualStatus.isEmpty()) {
-                    r.setStatusManual(manualStatus);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, java.sql.Date.valueOf(ReservationArchive.hotCutoff()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Reservation r = readReservation(rs);
+                    reservations.put(r.getResNo(), r);
                 }
-                reservations.put(resNo, r);
             }
             System.out.println("✓ Loaded " + reservations.size() + " reservations from database");
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to load reservations from database");
             e.printStackTrace();
+            return null;
         }
         return reservations;
     }
 
+    /**
+     * Load only the reservations inserted or updated at or after the given
+     * time (uses the updated_at column). Like loadAllReservations, stays
+     * that checked out before the archive cutoff are left in the database.
+     */
+    public static List<Reservation> loadReservationsChangedSince(Timestamp since) {
+        List<Reservation> changed = new ArrayList<>();
+        String sql = "SELECT * FROM reservations WHERE updated_at >= ? AND check_out_date >= ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, since);
+            pstmt.setDate(2, java.sql.Date.valueOf(ReservationArchive.hotCutoff()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    changed.add(readReservation(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to load changed reservations from database");
+            e.printStackTrace();
+            return null;
+        }
+        return changed;
+    }
+
+    /**
+     * Reservation numbers deleted at or after the given time.
+     */
+    public static List<String> loadDeletedSince(Timestamp since) {
+        List<String> deleted = new ArrayList<>();
+        String sql = "SELECT reservation_no FROM reservation_tombstones WHERE deleted_at >= ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    deleted.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to load deleted reservations from database");
+            e.printStackTrace();
+            return null;
+        }
+        return deleted;
+    }
+
+    /** Current time according to the database server, or null if unreachable. */
+    public static Timestamp getDatabaseTime() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP")) {
+            if (rs.next()) {
+                return rs.getTimestamp(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to read database time");
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** Remove tombstones older than the given time. */
+    public static void purgeTombstones(Timestamp before) {
+        String sql = "DELETE FROM reservation_tombstones WHERE deleted_at < ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, before);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("WARNING: Failed to purge reservation tombstones");
+        }
+    }
+
+    static Reservation readReservation(ResultSet rs) throws SQLException {
+        String resNo = rs.getString("reservation_no");
+        String name = rs.getString("guest_name");
+        String address = rs.getString("address");
+        String contact = rs.getString("contact");
+        String roomType = rs.getString("room_type");
+        LocalDate checkIn = rs.getDate("check_in_date").toLocalDate();
+        LocalDate checkOut = rs.getDate("check_out_date").toLocalDate();
+        long totalCost = rs.getLong("total_cost");
+        String manualStatus = rs.getString("manual_status");
+        if (manualStatus != null && manualStatus.isEmpty()) {
+            manualStatus = null;
+        }
+        // Keep the stored price; rates may have changed since it was booked
+        Reservation r = new Reservation(resNo, name, address, contact, roomType, checkIn, checkOut, totalCost, manualStatus);
+        r.setVersion(rs.getInt("version"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            r.setBookedOn(createdAt.toLocalDateTime().toLocalDate());
+        }
+        return r;
+    }
+
+    /**
+     * Insert a new reservation. Throws DuplicateReservationException if the
+     * reservation number is already taken, so callers need no separate
+     * existence check.
+     *
+     * The rooms are counted again from the database first, so bookings made
+     * on other terminals since the last sync are seen, and NoRoomException
+     * is thrown if a night is full. A MySQL named lock per room type makes
+     * the count and the insert one step across every terminal.
+     */
     public static boolean saveReservation(Reservation r) {
         String sql = "INSERT INTO reservations (reservation_no, guest_name, address, contact, " +
                      "room_type, check_in_date, check_out_date, total_cost, manual_status) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, r.getResNo());
-            pstmt.setString(2, r.getName());
-            pstmt.setString(3, r.getAddress());
-            pstmt.setString(4, r.getContact());
-            pstmt.setString(5, r.getRoomType());
-            pstmt.setDate(6, Date.valueOf(r.getCheckIn()));
-            pstmt.setDate(7, Date.valueOf(r.getCheckOut()));
-            pstmt.setLong(8, r.getTotalCost());
-            pstmt.setString(9, r.isManualStatus() ? r.getStatus() : null);
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                logAction(r.getResNo(), "CREATE", "admin", "New reservation created");
-                System.out.println("✓ Reservation saved: " + r.getResNo());
-                return true;
+        String lockName = "ocean_resort.booking." + r.getRoomType();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            lockBooking(conn, lockName);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int capacity = RoomInventory.capacityOf(r.getRoomType());
+                if (capacity != Integer.MAX_VALUE && maxRoomsBooked(conn, r) >= capacity) {
+                    throw new NoRoomException("No " + r.getRoomType() + " rooms free for every night from "
+                            + r.getCheckIn() + " to " + r.getCheckOut() + " (booked at another desk)!");
+                }
+                pstmt.setString(1, r.getResNo());
+                pstmt.setString(2, r.getName());
+                pstmt.setString(3, r.getAddress());
+                pstmt.setString(4, r.getContact());
+                pstmt.setString(5, r.getRoomType());
+                pstmt.setDate(6, Date.valueOf(r.getCheckIn()));
+                pstmt.setDate(7, Date.valueOf(r.getCheckOut()));
+                pstmt.setLong(8, r.getTotalCost());
+                pstmt.setString(9, r.isManualStatus() ? r.getStatus() : null);
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    logAction(r.getResNo(), "CREATE", "admin", "New reservation created");
+                    System.out.println("✓ Reservation saved: " + r.getResNo());
+                    return true;
+                }
+            } finally {
+                unlockBooking(conn, lockName);
             }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Unique key on reservation_no: the ID is already taken
+            throw new DuplicateReservationException();
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to save reservation");
             e.printStackTrace();
@@ -63,26 +217,132 @@ public class DatabaseHandler {
         return false;
     }
 
+    private static void lockBooking(Connection conn, String lockName) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, lockName);
+            pstmt.setInt(2, BOOKING_LOCK_TIMEOUT);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another desk's booking to finish");
+                }
+            }
+        }
+    }
+
+    private static void unlockBooking(Connection conn, String lockName) {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, lockName);
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            // Back in the pool the session would keep the lock and block every
+            // booking of this room type, so end the session instead
+            System.err.println("WARNING: Could not release booking lock " + lockName + ", dropping the connection");
+            try {
+                conn.abort(Runnable::run);
+            } catch (SQLException ignored) {
+                // Already closed
+            }
+        }
+    }
+
+    /** Most rooms of r's type booked on any night of its stay, cancelled bookings excluded. */
+    private static int maxRoomsBooked(Connection conn, Reservation r) throws SQLException {
+        String sql = "SELECT check_in_date, check_out_date FROM reservations WHERE room_type = ? " +
+                     "AND check_in_date < ? AND check_out_date > ? " +
+                     "AND (manual_status IS NULL OR manual_status <> 'Cancelled')";
+        long first = r.getCheckIn().toEpochDay();
+        int[] booked = new int[(int) (r.getCheckOut().toEpochDay() - first)];
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, r.getRoomType());
+            pstmt.setDate(2, Date.valueOf(r.getCheckOut()));
+            pstmt.setDate(3, Date.valueOf(r.getCheckIn()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long from = Math.max(first, rs.getObject(1, LocalDate.class).toEpochDay());
+                    long to = Math.min(first + booked.length, rs.getObject(2, LocalDate.class).toEpochDay());
+                    for (long day = from; day < to; day++) booked[(int) (day - first)]++;
+                }
+            }
+        }
+        int max = 0;
+        for (int n : booked) max = Math.max(max, n);
+        return max;
+    }
+
+    /**
+     * Lease a block of reservation numbers from reservation_sequence.
+     * Returns {first, end} (end exclusive), or null on error. On first use
+     * the sequence starts after the highest R-number already stored,
+     * archived ones included.
+     */
+    public static long[] leaseReservationNumbers(int blockSize) {
+        String bump = "UPDATE reservation_sequence SET next_value = LAST_INSERT_ID(next_value + ?) " +
+                      "WHERE name = 'reservation'";
+        String stored = ReservationArchive.isAvailable()
+                ? "(SELECT reservation_no FROM reservations " +
+                  "UNION ALL SELECT reservation_no FROM reservations_archive) stored"
+                : "reservations";
+        String init = "INSERT IGNORE INTO reservation_sequence (name, next_value) " +
+                      "SELECT 'reservation', COALESCE(MAX(CAST(SUBSTRING(reservation_no, 2) AS UNSIGNED)), 0) + 1 " +
+                      "FROM " + stored + " WHERE reservation_no REGEXP '^R[0-9]+$'";
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try (PreparedStatement pstmt = conn.prepareStatement(bump)) {
+                    pstmt.setInt(1, blockSize);
+                    if (pstmt.executeUpdate() > 0) {
+                        try (Statement stmt = conn.createStatement();
+                             ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                            rs.next();
+                            long end = rs.getLong(1);
+                            return new long[]{end - blockSize, end};
+                        }
+                    }
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate(init);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to lease reservation numbers");
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Write every column, but only if nobody else has updated the row
+     * since this copy was read. Returns false on a conflict as well as on
+     * errors.
+     */
     public static boolean updateReservation(Reservation r) {
         String sql = "UPDATE reservations SET guest_name=?, address=?, contact=?, " +
                      "room_type=?, check_in_date=?, check_out_date=?, total_cost=?, " +
-                     "manual_status=? WHERE reservation_no=?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, r.getName());
-            pstmt.setString(2, r.getAddress());
-            pstmt.setString(3, r.getContact());
-            pstmt.setString(4, r.getRoomType());
-            pstmt.setDate(5, Date.valueOf(r.getCheckIn()));
-            pstmt.setDate(6, Date.valueOf(r.getCheckOut()));
-            pstmt.setLong(7, r.getTotalCost());
-            pstmt.setString(8, r.isManualStatus() ? r.getStatus() : null);
-            pstmt.setString(9, r.getResNo());
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                logAction(r.getResNo(), "UPDATE", "admin", "Reservation updated");
-                System.out.println("✓ Reservation updated: " + r.getResNo());
-                return true;
+                     "manual_status=?, version=version+1 WHERE reservation_no=? AND version=?";
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, r.getName());
+                pstmt.setString(2, r.getAddress());
+                pstmt.setString(3, r.getContact());
+                pstmt.setString(4, r.getRoomType());
+                pstmt.setDate(5, Date.valueOf(r.getCheckIn()));
+                pstmt.setDate(6, Date.valueOf(r.getCheckOut()));
+                pstmt.setLong(7, r.getTotalCost());
+                pstmt.setString(8, r.getManualStatus());
+                pstmt.setString(9, r.getResNo());
+                pstmt.setInt(10, r.getVersion());
+                versionedUpdates.incrementAndGet();
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    r.setVersion(r.getVersion() + 1);
+                    logAction(r.getResNo(), "UPDATE", "admin", "Reservation updated");
+                    System.out.println("✓ Reservation updated: " + r.getResNo());
+                    return true;
+                }
+                conflictsDetected.incrementAndGet();
+                conflictsRejected.incrementAndGet();
+                System.err.println("WARNING: Reservation " + r.getResNo() + " was changed by another desk, update rejected");
             }
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to update reservation");
@@ -91,16 +351,166 @@ public class DatabaseHandler {
         return false;
     }
 
+    /**
+     * Change only the manual status, compare-and-set on the row version.
+     * expectedStatus is the manual status the change was decided on (null
+     * for auto). If another desk updated the row in the meantime:
+     * - it set the same status: nothing left to do;
+     * - it left the status as expected (changed other fields): retry on
+     *   the new version, since the two edits don't overlap;
+     * - it changed the status to something else: a real conflict.
+     * No row locks are taken.
+     */
+    public static UpdateResult updateManualStatus(Reservation r, String expectedStatus) {
+        String sql = "UPDATE reservations SET manual_status=?, version=version+1 " +
+                     "WHERE reservation_no=? AND version=?";
+        String status = r.getManualStatus();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int attempt = 0; attempt <= MAX_MERGE_RETRIES; attempt++) {
+                    pstmt.setString(1, status);
+                    pstmt.setString(2, r.getResNo());
+                    pstmt.setInt(3, r.getVersion());
+                    versionedUpdates.incrementAndGet();
+                    if (pstmt.executeUpdate() > 0) {
+                        r.setVersion(r.getVersion() + 1);
+                        logAction(r.getResNo(), "UPDATE", "admin", "Status set to " + (status == null ? "auto" : status));
+                        System.out.println("✓ Reservation updated: " + r.getResNo());
+                        return UpdateResult.UPDATED;
+                    }
+
+                    conflictsDetected.incrementAndGet();
+                    Reservation current = loadReservation(conn, r.getResNo());
+                    if (current == null) {
+                        conflictsRejected.incrementAndGet();
+                        return UpdateResult.CONFLICT;
+                    }
+                    if (Objects.equals(current.getManualStatus(), status)) {
+                        conflictsMerged.incrementAndGet();
+                        r.setVersion(current.getVersion());
+                        return UpdateResult.UPDATED;
+                    }
+                    if (!Objects.equals(current.getManualStatus(), expectedStatus)) {
+                        conflictsRejected.incrementAndGet();
+                        System.err.println("WARNING: Reservation " + r.getResNo() + " status was changed by another desk to "
+                                + current.getManualStatus());
+                        return UpdateResult.CONFLICT;
+                    }
+                    conflictsMerged.incrementAndGet();
+                    r.setVersion(current.getVersion());
+                }
+                conflictsRejected.incrementAndGet();
+                return UpdateResult.CONFLICT;
+            }
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to update reservation");
+            e.printStackTrace();
+        }
+        return UpdateResult.FAILED;
+    }
+
+    private static Reservation loadReservation(Connection conn, String reservationNo) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM reservations WHERE reservation_no = ?")) {
+            pstmt.setString(1, reservationNo);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? readReservation(rs) : null;
+            }
+        }
+    }
+
+    /** Versioned updates, conflicts, and how many of those were merged or rejected. */
+    public static String getConcurrencyStats() {
+        return String.format("%d versioned updates, %d conflicts (%d merged, %d rejected)",
+                versionedUpdates.get(), conflictsDetected.get(), conflictsMerged.get(), conflictsRejected.get());
+    }
+
+    /**
+     * Store new prices for many reservations in one batched transaction,
+     * compare-and-set on each row's version. Returns the reservations whose
+     * rows were updated, with their version moved on, or null if the batch
+     * failed. Rows changed by another desk meanwhile are left alone and
+     * their current values are added to changedElsewhere.
+     */
+    public static List<Reservation> updateTotalCosts(Map<Reservation, Long> quotes,
+                                                     List<Reservation> changedElsewhere) {
+        String sql = "UPDATE reservations SET total_cost=?, version=version+1 WHERE reservation_no=? AND version=?";
+        List<Reservation> batch = new ArrayList<>(quotes.keySet());
+        List<Reservation> updated = new ArrayList<>();
+        List<String> conflicts = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Reservation r : batch) {
+                    pstmt.setLong(1, quotes.get(r));
+                    pstmt.setString(2, r.getResNo());
+                    pstmt.setInt(3, r.getVersion());
+                    pstmt.addBatch();
+                }
+                int[] counts = pstmt.executeBatch();
+                conn.commit();
+                versionedUpdates.addAndGet(batch.size());
+                for (int i = 0; i < counts.length; i++) {
+                    Reservation r = batch.get(i);
+                    if (counts[i] == 0) {
+                        conflictsDetected.incrementAndGet();
+                        conflictsRejected.incrementAndGet();
+                        conflicts.add(r.getResNo());
+                    } else {
+                        r.setVersion(r.getVersion() + 1);
+                        updated.add(r);
+                    }
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            logAction(null, "REPRICE", "admin", updated.size() + " reservations re-priced");
+
+            // The batch is committed; failing to read a conflicting row only
+            // leaves it for the next delta sync
+            for (String resNo : conflicts) {
+                try {
+                    Reservation current = loadReservation(conn, resNo);
+                    // A deleted row is dropped by the next delta sync
+                    if (current != null) changedElsewhere.add(current);
+                } catch (SQLException e) {
+                    System.err.println("WARNING: Could not re-read " + resNo + " after re-pricing: " + e.getMessage());
+                }
+            }
+            return updated;
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to save re-priced reservations");
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     public static boolean deleteReservation(String reservationNo) {
         String sql = "DELETE FROM reservations WHERE reservation_no = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, reservationNo);
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected > 0) {
-                logAction(reservationNo, "DELETE", "admin", "Reservation deleted");
-                System.out.println("✓ Reservation deleted: " + reservationNo);
-                return true;
+        String tombstoneSql = "REPLACE INTO reservation_tombstones (reservation_no) VALUES (?)";
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                 PreparedStatement tombstone = conn.prepareStatement(tombstoneSql)) {
+                pstmt.setString(1, reservationNo);
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    // Leave a tombstone so other terminals drop it on their next delta sync
+                    tombstone.setString(1, reservationNo);
+                    tombstone.executeUpdate();
+                    conn.commit();
+                    logAction(reservationNo, "DELETE", "admin", "Reservation deleted");
+                    System.out.println("✓ Reservation deleted: " + reservationNo);
+                    return true;
+                }
+                conn.rollback();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to delete reservation");
@@ -168,18 +578,12 @@ public class DatabaseHandler {
         }
     }
 
+    /**
+     * Record an action in audit_log. The insert is queued and written in
+     * the background by AuditLogWriter.
+     */
     public static void logAction(String reservationNo, String action, String performedBy, String details) {
-        String sql = "INSERT INTO audit_log (reservation_no, action, performed_by, action_details) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, reservationNo);
-            pstmt.setString(2, action);
-            pstmt.setString(3, performedBy);
-            pstmt.setString(4, details);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("WARNING: Failed to log action");
-        }
+        AuditLogWriter.submit(reservationNo, action, performedBy, details);
     }
 
     public static void printDatabaseStats() {
@@ -0,0 +1,121 @@
+package resort;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+
+/**
+ * Logs every event that holds the event dispatch thread for longer than
+ * THRESHOLD_MS, with where the thread was while it was stuck.
+ *
+ * Installs its own EventQueue to time each event. A daemon thread checks
+ * the running event every few milliseconds and, once it passes the
+ * threshold, takes a stack trace of the event thread, so the warning
+ * shows the slow code rather than just the event. Time spent in a modal
+ * dialog's nested event loop, waiting or dispatching, is not counted
+ * against the event that opened it.
+ */
+public class EdtWatchdog extends EventQueue {
+
+    public static final long THRESHOLD_MS = 100;
+    private static final int STACK_DEPTH = 8;
+    private static final int MAX_NESTING = 64;
+
+    private static boolean installed = false;
+
+    // Written on the EDT only; the watchdog thread reads the volatile fields
+    private final long[] startedAt = new long[MAX_NESTING];
+    private final long[] pausedAt = new long[MAX_NESTING];
+    private final long[] nestedNanos = new long[MAX_NESTING];
+    private int depth = 0;
+    private volatile long currentStart = 0;
+    private volatile Thread edt;
+    private volatile StackTraceElement[] stuckAt;
+
+    /** Start watching the event dispatch thread. Safe to call more than once. */
+    public static synchronized void install() {
+        if (installed) return;
+        installed = true;
+        EdtWatchdog watchdog = new EdtWatchdog();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        Thread monitor = new Thread(watchdog::monitor, "edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    private EdtWatchdog() {
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long now = System.nanoTime();
+        if (depth > 0 && depth <= MAX_NESTING) pausedAt[depth - 1] = now;
+        int level = depth++;
+        if (level < MAX_NESTING) {
+            startedAt[level] = now;
+            nestedNanos[level] = 0;
+        }
+        edt = Thread.currentThread();
+        stuckAt = null;
+        currentStart = now;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            depth--;
+            if (level < MAX_NESTING) {
+                long tookMs = (end - startedAt[level] - nestedNanos[level]) / 1_000_000;
+                if (tookMs > THRESHOLD_MS) report(event, tookMs);
+                if (level > 0) nestedNanos[level - 1] += end - pausedAt[level - 1];
+            }
+            // The outer event (if any) carries on; time it from here
+            stuckAt = null;
+            currentStart = depth > 0 ? end : 0;
+        }
+    }
+
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        if (depth == 0) return super.getNextEvent();
+        // A modal dialog's event loop is waiting for input; that idle time
+        // is not the outer event's fault
+        long waitStart = System.nanoTime();
+        currentStart = 0;
+        try {
+            return super.getNextEvent();
+        } finally {
+            if (depth <= MAX_NESTING) nestedNanos[depth - 1] += System.nanoTime() - waitStart;
+        }
+    }
+
+    private void report(AWTEvent event, long tookMs) {
+        StringBuilder message = new StringBuilder("WARNING: Event thread blocked for ")
+                .append(tookMs).append(" ms by ").append(event.getClass().getSimpleName());
+        StackTraceElement[] stack = stuckAt;
+        if (stack != null) {
+            for (int i = 0; i < stack.length && i < STACK_DEPTH; i++) {
+                message.append("\n    at ").append(stack[i]);
+            }
+        }
+        System.err.println(message);
+    }
+
+    /** Watchdog thread: capture where the event thread is once an event overruns. */
+    private void monitor() {
+        while (true) {
+            try {
+                Thread.sleep(THRESHOLD_MS / 4);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = currentStart;
+            Thread thread = edt;
+            if (start == 0 || thread == null || stuckAt != null) continue;
+            if ((System.nanoTime() - start) / 1_000_000 > THRESHOLD_MS) {
+                StackTraceElement[] stack = thread.getStackTrace();
+                // Only keep it if the same event is still running
+                if (currentStart == start) stuckAt = stack;
+            }
+        }
+    }
+}
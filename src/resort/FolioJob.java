@@ -0,0 +1,171 @@
+package resort;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Month-end folio run: writes an invoice file for every reservation that
+ * checked out in a date range, plus a manifest.
+ *
+ * Reservations are rendered in chunks on a fork-join pool, one HTML file
+ * per reservation. After each file is written its line is added to
+ * manifest.csv, and the manifest is flushed after every chunk. The
+ * manifest doubles as the checkpoint: running the job again into the same
+ * directory skips every reservation already listed in it.
+ *
+ * Uses no Swing, so it runs on a headless server.
+ */
+public class FolioJob {
+
+    public static final String MANIFEST = "manifest.csv";
+    private static final int CHUNK_SIZE = 500;
+
+    private final ReservationStore reservations;
+    private final Path directory;
+    private final LocalDate from, to;
+    private final String status;
+    private final int parallelism;
+
+    /** status may be null for every status. */
+    public FolioJob(ReservationStore reservations, Path directory, LocalDate from, LocalDate to,
+                    String status, int parallelism) {
+        this.reservations = reservations;
+        this.directory = directory;
+        this.from = from;
+        this.to = to;
+        this.status = status;
+        this.parallelism = parallelism;
+    }
+
+    /** Run the job. Returns the number of folios written in this run. */
+    public int run() throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        Set<String> done = readManifest(manifest);
+
+        List<Reservation> selected = new ArrayList<>();
+        for (Reservation r : reservations.departingBetween(from, to)) {
+            if (status != null && !status.equals(r.getStatus())) continue;
+            if (!done.contains(r.getResNo())) selected.add(r);
+        }
+        // A stable order keeps the files of a chunk together in the manifest
+        selected.sort(Comparator.comparing(Reservation::getResNo));
+        if (!done.isEmpty()) {
+            System.out.println("✓ Resuming folio run: " + done.size() + " already written, " + selected.size() + " to go");
+        }
+
+        AtomicLong bytes = new AtomicLong();
+        long start = System.currentTimeMillis();
+        int written = 0;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        boolean newManifest = !Files.exists(manifest);
+        try (BufferedWriter out = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newManifest) out.write("reservation_no,file,bytes,total_cost,status\n");
+            else if (endsMidLine(manifest)) out.write('\n');
+            for (int i = 0; i < selected.size(); i += CHUNK_SIZE) {
+                List<Reservation> chunk = selected.subList(i, Math.min(selected.size(), i + CHUNK_SIZE));
+                List<String> lines = renderChunk(pool, chunk, bytes);
+                for (String line : lines) {
+                    out.write(line);
+                }
+                out.flush();
+                written += chunk.size();
+                printProgress(written, selected.size(), bytes.get(), start);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("✓ Folio run finished: " + written + " written to " + directory);
+        return written;
+    }
+
+    /** Render and write a chunk in parallel; returns its manifest lines in chunk order. */
+    private List<String> renderChunk(ForkJoinPool pool, List<Reservation> chunk, AtomicLong bytes) {
+        try {
+            return pool.submit(() -> chunk.parallelStream().map(r -> {
+                byte[] html = InvoiceRenderer.renderUncached(r).getBytes(StandardCharsets.UTF_8);
+                String fileName = fileName(r.getResNo());
+                StringBuilder line = new StringBuilder(64);
+                try {
+                    Files.write(directory.resolve(fileName), html);
+                    // Reservation numbers may hold commas or quotes
+                    ReservationExporter.csvField(line, r.getResNo());
+                    line.append(',').append(fileName).append(',').append(html.length).append(',')
+                            .append(r.getTotalCost()).append(',');
+                    ReservationExporter.csvField(line, r.getStatus());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                bytes.addAndGet(html.length);
+                return line.append('\n').toString();
+            }).collect(java.util.stream.Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Folio run interrupted", e);
+        } catch (java.util.concurrent.ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw (UncheckedIOException) cause;
+            throw new IllegalStateException("Folio rendering failed", cause);
+        }
+    }
+
+    private static void printProgress(int written, int total, long bytes, long start) {
+        double seconds = Math.max(0.001, (System.currentTimeMillis() - start) / 1000.0);
+        System.out.println(String.format("✓ %,d / %,d folios (%,.0f folios/sec, %.1f MB/s)",
+                written, total, written / seconds, bytes / seconds / (1024 * 1024)));
+    }
+
+    /** Reservation numbers already in the manifest. */
+    private static Set<String> readManifest(Path manifest) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(manifest)) return done;
+        try (ReservationImporter.CsvReader csv = new ReservationImporter.CsvReader(
+                Files.newBufferedReader(manifest, StandardCharsets.UTF_8))) {
+            csv.next(); // header
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                // A torn last line (crash mid-write) is simply redone
+                if (fields.size() == 5 && !fields.get(0).isEmpty()) done.add(fields.get(0));
+            }
+        }
+        return done;
+    }
+
+    private static boolean endsMidLine(Path manifest) throws IOException {
+        try (java.nio.channels.SeekableByteChannel ch = Files.newByteChannel(manifest)) {
+            if (ch.size() == 0) return false;
+            java.nio.ByteBuffer last = java.nio.ByteBuffer.allocate(1);
+            ch.position(ch.size() - 1).read(last);
+            return last.get(0) != '\n';
+        }
+    }
+
+    /** Reservation numbers are typed by clerks, so keep only file-name-safe characters. */
+    private static String fileName(String resNo) {
+        StringBuilder sb = new StringBuilder(resNo.length() + 16);
+        boolean changed = false;
+        for (int i = 0; i < resNo.length(); i++) {
+            char c = resNo.charAt(i);
+            boolean safe = c < 128 && (Character.isLetterOrDigit(c) || c == '-');
+            sb.append(safe ? c : '_');
+            changed |= !safe;
+        }
+        // Two numbers that only differ in unsafe characters still get different files
+        if (changed) sb.append('_').append(Integer.toHexString(resNo.hashCode()));
+        return sb.append(".html").toString();
+    }
+}
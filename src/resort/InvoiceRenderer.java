@@ -0,0 +1,266 @@
+package resort;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterAbortException;
+import java.awt.print.PrinterException;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JEditorPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Renders guest invoices from one HTML template.
+ *
+ * The template is split into literal text and field slots once, when the
+ * class loads; rendering an invoice is then a single pass of appends into
+ * a StringBuilder. Rendered invoices are cached per reservation and
+ * reused until the reservation's version, status or total cost changes.
+ *
+ * renderBatch() writes many invoices into one HTML document with a page
+ * break after each, and printable() gives a Printable with one invoice
+ * per page, for month-end runs.
+ */
+public class InvoiceRenderer {
+
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final int CACHE_SIZE = 500;
+
+    private static final String ROW_START = "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>";
+    private static final String ROW_MIDDLE = "</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>";
+    private static final String ROW_END = "</td></tr>";
+
+    private static final String BODY =
+            "<div style='text-align:center;'>"
+            + "<h1 style='color:#0066CC; margin:0;'>🌊 OCEAN RESORT</h1>"
+            + "<p style='color:#666;'>Luxury Beach Resort & Spa</p><hr style='border:1px solid #ddd;'></div>"
+            + "<h2 style='color:#333;'>Guest Invoice</h2>"
+            + "<table style='width:100%; margin-top:20px; border-collapse:collapse;'>"
+            + ROW_START + "Reservation ID:" + ROW_MIDDLE + "{resNo}" + ROW_END
+            + ROW_START + "Guest Name:" + ROW_MIDDLE + "{name}" + ROW_END
+            + ROW_START + "Contact:" + ROW_MIDDLE + "{contact}" + ROW_END
+            + ROW_START + "Room Type:" + ROW_MIDDLE + "{roomType}" + ROW_END
+            + ROW_START + "Check-In:" + ROW_MIDDLE + "{checkIn}" + ROW_END
+            + ROW_START + "Check-Out:" + ROW_MIDDLE + "{checkOut}" + ROW_END
+            + ROW_START + "Number of Nights:" + ROW_MIDDLE + "{nights}" + ROW_END
+            + ROW_START + "Rate per Night:" + ROW_MIDDLE + "{rate} LKR" + ROW_END
+            + ROW_START + "Status:" + ROW_MIDDLE + "{status}" + ROW_END
+            + "</table>"
+            + "<div style='margin-top:30px; background:#f5f5f5; padding:15px; border-left:4px solid #00C896;'>"
+            + "<h2 style='margin:0; color:#00C896;'>Total Amount: {total} LKR</h2></div>"
+            + "<p style='margin-top:30px; color:#666; font-size:12px; text-align:center;'>Thank you for choosing Ocean Resort!<br>"
+            + "Contact: +94 11 234 5678 | Email: info@oceanresort.lk</p>";
+
+    private static final String PAGE_START = "<html><body style='font-family:sans-serif; padding:20px;'>";
+    private static final String PAGE_END = "</body></html>";
+
+    private static final String[] FIELDS =
+            {"resNo", "name", "contact", "roomType", "checkIn", "checkOut", "nights", "rate", "status", "total"};
+
+    // Compiled template: literals[i] is followed by field slots[i]; the last literal has no slot
+    private static final String[] literals;
+    private static final int[] slots;
+
+    static {
+        List<String> parts = new ArrayList<>();
+        List<Integer> fieldIndexes = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = BODY.indexOf('{', pos);
+            if (open < 0) break;
+            int close = BODY.indexOf('}', open);
+            int field = java.util.Arrays.asList(FIELDS).indexOf(BODY.substring(open + 1, close));
+            if (field < 0) throw new IllegalStateException("Unknown invoice field " + BODY.substring(open, close + 1));
+            parts.add(BODY.substring(pos, open));
+            fieldIndexes.add(field);
+            pos = close + 1;
+        }
+        parts.add(BODY.substring(pos));
+        literals = parts.toArray(new String[0]);
+        slots = fieldIndexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static final class Cached {
+        final int version;
+        final String status;
+        final long totalCost;
+        final String html;
+
+        Cached(int version, String status, long totalCost, String html) {
+            this.version = version;
+            this.status = status;
+            this.totalCost = totalCost;
+            this.html = html;
+        }
+    }
+
+    private static final Map<String, Cached> cache = new LinkedHashMap<String, Cached>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static long hits = 0, misses = 0;
+
+    private InvoiceRenderer() {
+    }
+
+    /** The invoice as a complete HTML page, from the cache when the reservation hasn't changed. */
+    public static String render(Reservation r) {
+        String status = r.getStatus();
+        synchronized (cache) {
+            Cached c = cache.get(r.getResNo());
+            if (c != null && c.version == r.getVersion() && c.status.equals(status) && c.totalCost == r.getTotalCost()) {
+                hits++;
+                return c.html;
+            }
+            misses++;
+        }
+        String html = page(r, status);
+        synchronized (cache) {
+            cache.put(r.getResNo(), new Cached(r.getVersion(), status, r.getTotalCost(), html));
+        }
+        return html;
+    }
+
+    /**
+     * Write many invoices as one HTML document, one invoice per printed
+     * page. Bypasses the cache so a month-end run doesn't evict the desk's
+     * recent invoices. Returns the number written.
+     */
+    public static int renderBatch(List<Reservation> batch, Writer out) throws IOException {
+        StringBuilder sb = new StringBuilder(3072);
+        out.write(PAGE_START);
+        for (int i = 0; i < batch.size(); i++) {
+            sb.setLength(0);
+            sb.append(i < batch.size() - 1 ? "<div style='page-break-after:always;'>" : "<div>");
+            appendBody(sb, batch.get(i), batch.get(i).getStatus());
+            sb.append("</div>");
+            out.append(sb);
+        }
+        out.write(PAGE_END);
+        out.flush();
+        return batch.size();
+    }
+
+    /**
+     * One invoice per page, each scaled down if it doesn't fit. Also bypasses
+     * the cache. The print job may run on any thread; each page is laid out
+     * and painted on the event thread, since the HTML pane is Swing.
+     */
+    public static Printable printable(List<Reservation> batch) {
+        return new Printable() {
+            private int renderedPage = -1;
+            private JEditorPane pane;
+
+            @Override
+            public int print(Graphics g, PageFormat pf, int pageIndex) throws PrinterException {
+                if (pageIndex >= batch.size()) return NO_SUCH_PAGE;
+                if (SwingUtilities.isEventDispatchThread()) {
+                    printPage(g, pf, pageIndex);
+                    return PAGE_EXISTS;
+                }
+                try {
+                    SwingUtilities.invokeAndWait(() -> printPage(g, pf, pageIndex));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PrinterAbortException("Printing interrupted");
+                } catch (java.lang.reflect.InvocationTargetException e) {
+                    throw new PrinterException("Could not lay out invoice " + (pageIndex + 1) + ": " + e.getCause());
+                }
+                return PAGE_EXISTS;
+            }
+
+            private void printPage(Graphics g, PageFormat pf, int pageIndex) {
+                // The print system asks for each page more than once
+                if (pageIndex != renderedPage) {
+                    Reservation r = batch.get(pageIndex);
+                    pane = new JEditorPane("text/html", page(r, r.getStatus()));
+                    pane.setSize((int) pf.getImageableWidth(), Integer.MAX_VALUE / 2);
+                    pane.setSize((int) pf.getImageableWidth(), pane.getPreferredSize().height);
+                    renderedPage = pageIndex;
+                }
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.translate(pf.getImageableX(), pf.getImageableY());
+                double scale = Math.min(1.0, pf.getImageableHeight() / pane.getHeight());
+                g2.scale(scale, scale);
+                pane.print(g2);
+                g2.dispose();
+            }
+        };
+    }
+
+    /** e.g. "42 hits, 3 misses, 45 cached" */
+    public static String getCacheStats() {
+        synchronized (cache) {
+            return hits + " hits, " + misses + " misses, " + cache.size() + " cached";
+        }
+    }
+
+    /** The invoice page, always freshly rendered and never cached. */
+    static String renderUncached(Reservation r) {
+        return page(r, r.getStatus());
+    }
+
+    private static String page(Reservation r, String status) {
+        StringBuilder sb = new StringBuilder(3072);
+        sb.append(PAGE_START);
+        appendBody(sb, r, status);
+        sb.append(PAGE_END);
+        return sb.toString();
+    }
+
+    private static void appendBody(StringBuilder sb, Reservation r, String status) {
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            appendField(sb, slots[i], r, status);
+        }
+        sb.append(literals[literals.length - 1]);
+    }
+
+    private static void appendField(StringBuilder sb, int field, Reservation r, String status) {
+        switch (field) {
+            case 0: escape(sb, r.getResNo()); break;
+            case 1: escape(sb, r.getName()); break;
+            case 2: escape(sb, r.getContact()); break;
+            case 3: sb.append(r.getRoomType()); break;
+            case 4: DATE_FORMAT.formatTo(r.getCheckIn(), sb); break;
+            case 5: DATE_FORMAT.formatTo(r.getCheckOut(), sb); break;
+            case 6: sb.append(r.getNights()); break;
+            case 7: sb.append(String.format("%,d", r.getTotalCost() / Math.max(1, r.getNights()))); break;
+            case 8: sb.append(status); break;
+            case 9: sb.append(String.format("%,d", r.getTotalCost())); break;
+            default: throw new IllegalStateException("Unknown invoice field " + field);
+        }
+    }
+
+    /** Guest-entered text goes into the page as text, not markup. */
+    private static void escape(StringBuilder sb, String s) {
+        if (s == null) return;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '&': sb.append("&amp;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\'': sb.append("&#39;"); break;
+                default: sb.append(c);
+            }
+        }
+    }
+
+    /** Reservations checking out in the given month, for month-end runs. */
+    public static List<Reservation> checkingOutIn(ReservationStore store, int year, int month) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        return store.departingBetween(first, first.withDayOfMonth(first.lengthOfMonth()));
+    }
+}
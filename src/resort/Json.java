@@ -0,0 +1,133 @@
+package resort;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the server API: writing values and reading flat
+ * request objects ({"key": "text" | number | true | false | null, ...}).
+ */
+public class Json {
+
+    public static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /** Write a map as an object; values are Strings, Numbers, Booleans or already-encoded Json.Raw. */
+    public static String object(Map<String, ?> fields) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, ?> e : fields.entrySet()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(quote(e.getKey())).append(':').append(value(e.getValue()));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String value(Object v) {
+        if (v == null) return "null";
+        if (v instanceof Raw) return ((Raw) v).json;
+        if (v instanceof Number || v instanceof Boolean) return v.toString();
+        return quote(v.toString());
+    }
+
+    /** A value that is already JSON, e.g. a nested object or array. */
+    public static final class Raw {
+        final String json;
+
+        public Raw(String json) {
+            this.json = json;
+        }
+    }
+
+    /** Parse a flat object into strings (numbers and booleans as text, null as null). */
+    public static Map<String, String> parseObject(String text) {
+        Map<String, String> result = new LinkedHashMap<>();
+        int[] pos = {skip(text, 0)};
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+            return result;
+        }
+        while (true) {
+            String key = readString(text, pos);
+            expect(text, pos, ':');
+            result.put(key, readValue(text, pos));
+            char c = peek(text, pos);
+            pos[0]++;
+            if (c == '}') return result;
+            if (c != ',') throw new IllegalArgumentException("Malformed JSON at " + (pos[0] - 1));
+        }
+    }
+
+    private static String readValue(String text, int[] pos) {
+        char c = peek(text, pos);
+        if (c == '"') return readString(text, pos);
+        int start = pos[0];
+        while (pos[0] < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos[0])) < 0) pos[0]++;
+        String token = text.substring(start, pos[0]);
+        if (token.isEmpty()) throw new IllegalArgumentException("Malformed JSON at " + start);
+        return token.equals("null") ? null : token;
+    }
+
+    private static String readString(String text, int[] pos) {
+        expect(text, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') return sb.toString();
+            if (c == '\\') {
+                if (pos[0] >= text.length()) break;
+                char e = text.charAt(pos[0]++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos[0] + 4 > text.length()) throw new IllegalArgumentException("Malformed JSON escape");
+                        sb.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                        pos[0] += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON string");
+    }
+
+    private static void expect(String text, int[] pos, char c) {
+        if (peek(text, pos) != c) {
+            throw new IllegalArgumentException("Expected '" + c + "' at " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String text, int[] pos) {
+        pos[0] = skip(text, pos[0]);
+        if (pos[0] >= text.length()) throw new IllegalArgumentException("Unexpected end of JSON");
+        return text.charAt(pos[0]);
+    }
+
+    private static int skip(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+}
@@ -125,28 +125,10 @@ public class LoginPage extends JFrame {
         loginPanel.add(hintLabel, gbc);
 
         // ── Login Action ─────────────────────────────────────────────────────
-        ActionListener loginAction = e -> {
-            String username = userField.getText().trim();
-            String password = new String(passField.getPassword());
-
-            boolean authenticated = false;
-
-            if (mainSystem.isUsingDatabase()) {
-                // Authenticate AND verify role matches
-                String userRole = DatabaseHandler.getUserRole(username, password);
-                authenticated = userRole != null && userRole.equalsIgnoreCase(selectedRole);
-            } else {
-                // Fallback hardcoded credentials
-                if (selectedRole.equals("ADMIN")) {
-                    authenticated = username.equals("admin") && password.equals("123");
-                } else {
-                    authenticated = username.equals("staff") && password.equals("staff123");
-                }
-            }
-
+        java.util.function.BiConsumer<Boolean, String> finishLogin = (authenticated, role) -> {
             if (authenticated) {
                 dispose();
-                mainSystem.setCurrentRole(selectedRole); // store role in main system
+                mainSystem.setCurrentRole(role); // store role in main system
                 mainSystem.showDashboard();
             } else {
                 // Red border feedback
@@ -156,7 +138,7 @@ public class LoginPage extends JFrame {
                 passField.setBorder(userField.getBorder());
 
                 JOptionPane.showMessageDialog(this,
-                        "<html>Invalid credentials for <b>" + selectedRole + "</b> login!</html>",
+                        "<html>Invalid credentials for <b>" + role + "</b> login!</html>",
                         "Login Failed",
                         JOptionPane.ERROR_MESSAGE);
 
@@ -172,6 +154,28 @@ public class LoginPage extends JFrame {
             }
         };
 
+        ActionListener loginAction = e -> {
+            String username = userField.getText().trim();
+            String password = new String(passField.getPassword());
+            String role = selectedRole;
+
+            if (mainSystem.isUsingDatabase()) {
+                // Authenticate AND verify role matches, off the event thread
+                loginBtn.setEnabled(false);
+                mainSystem.getRepository().userRole(username, password).whenComplete((userRole, ex) -> {
+                    loginBtn.setEnabled(true);
+                    finishLogin.accept(userRole != null && userRole.equalsIgnoreCase(role), role);
+                });
+            } else {
+                // Fallback hardcoded credentials
+                if (role.equals("ADMIN")) {
+                    finishLogin.accept(username.equals("admin") && password.equals("123"), role);
+                } else {
+                    finishLogin.accept(username.equals("staff") && password.equals("staff123"), role);
+                }
+            }
+        };
+
         loginBtn.addActionListener(loginAction);
         userField.addActionListener(loginAction);
         passField.addActionListener(loginAction);
@@ -0,0 +1,332 @@
+package resort;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Nights, arrivals and revenue per day, room type and status, for
+ * time-series reports (occupancy %, ADR, RevPAR over any date range).
+ *
+ * The figures live in three flat primitive arrays indexed by
+ * [day][roomType][status], so a report over a month reads a few thousand
+ * adjacent numbers instead of scanning reservations once per day. A stay's
+ * total cost is spread over its nights; the remainder of the division goes
+ * on the first night so the nights add up to the exact total.
+ *
+ * The store keeps one cube up to date from its change events. A cube can
+ * also be built from scratch, in parallel, from a list of reservations or
+ * straight from the database.
+ */
+public class OccupancyCube implements ReservationStore.Listener {
+
+    public static final String[] ROOM_TYPES = {"Single", "Double", "Suite"};
+    public static final String[] STATUSES = {"Upcoming", "Active", "Completed", "Checked-Out", "Cancelled"};
+    private static final int CANCELLED = 4;
+    private static final int CELLS_PER_DAY = ROOM_TYPES.length * STATUSES.length;
+    private static final int DB_PARTITIONS = 4;
+    // A stay has a night in from..to if it arrives by to and leaves after from
+    private static final String OVERLAPS = "check_in_date <= ? AND check_out_date > ?";
+
+    // Cell of (day, roomType, status) is ((day - base) * ROOM_TYPES + roomType) * STATUSES + status
+    private long base;
+    private int days = 0;
+    private int[] roomNights = new int[0];
+    private int[] arrivals = new int[0];
+    private long[] revenue = new long[0];
+
+    /** Totals over a date range. */
+    public static final class Figures {
+        public final LocalDate from, to;
+        public final long roomNights, arrivals, revenue, availableNights;
+
+        Figures(LocalDate from, LocalDate to, long roomNights, long arrivals, long revenue, long availableNights) {
+            this.from = from;
+            this.to = to;
+            this.roomNights = roomNights;
+            this.arrivals = arrivals;
+            this.revenue = revenue;
+            this.availableNights = availableNights;
+        }
+
+        /** Rooms sold as a percentage of rooms available. */
+        public double occupancy() {
+            return availableNights == 0 ? 0 : 100.0 * roomNights / availableNights;
+        }
+
+        /** Average daily rate: revenue per room night sold. */
+        public long adr() {
+            return roomNights == 0 ? 0 : revenue / roomNights;
+        }
+
+        /** Revenue per available room night. */
+        public long revPar() {
+            return availableNights == 0 ? 0 : revenue / availableNights;
+        }
+    }
+
+    @Override
+    public synchronized void reservationChanged(Reservation r, ReservationStore.Snapshot before,
+                                                ReservationStore.Snapshot after) {
+        if (before != null) apply(before.roomType, before.status, before.checkIn.toEpochDay(),
+                before.checkOut.toEpochDay(), before.totalCost, -1);
+        if (after != null) apply(after.roomType, after.status, after.checkIn.toEpochDay(),
+                after.checkOut.toEpochDay(), after.totalCost, 1);
+    }
+
+    /** Count one reservation in (used when building a cube from scratch). */
+    public synchronized void add(Reservation r) {
+        apply(r.getRoomType(), r.getStatus(), r.getCheckIn().toEpochDay(), r.getCheckOut().toEpochDay(),
+                r.getTotalCost(), 1);
+    }
+
+    private void apply(String roomType, String status, long checkIn, long checkOut, long totalCost, int sign) {
+        int type = indexOf(ROOM_TYPES, roomType);
+        int state = indexOf(STATUSES, status);
+        long nights = checkOut - checkIn;
+        if (type < 0 || state < 0 || nights <= 0) return;
+        ensure(checkIn, checkOut);
+
+        long share = totalCost / nights;
+        long remainder = totalCost % nights;
+        int cell = cell(checkIn, type, state);
+        arrivals[cell] += sign;
+        for (long day = checkIn; day < checkOut; day++) {
+            roomNights[cell] += sign;
+            revenue[cell] += sign * (day == checkIn ? share + remainder : share);
+            cell += CELLS_PER_DAY;
+        }
+    }
+
+    private int cell(long day, int type, int state) {
+        return ((int) (day - base) * ROOM_TYPES.length + type) * STATUSES.length + state;
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return -1;
+    }
+
+    /** Grow the arrays so the days [from, to) fit, with room to spare. */
+    private void ensure(long from, long to) {
+        if (days == 0) {
+            base = from;
+            allocate((int) Math.max(to - from, 366), 0);
+            return;
+        }
+        long newBase = Math.min(base, from);
+        long newEnd = Math.max(base + days, to);
+        if (newBase == base && newEnd == base + days) return;
+        if (newBase < base) newBase = Math.min(newBase, base - days / 2);
+        if (newEnd > base + days) newEnd = Math.max(newEnd, base + days + days / 2);
+        int shift = (int) (base - newBase);
+        base = newBase;
+        allocate((int) (newEnd - newBase), shift);
+    }
+
+    private void allocate(int newDays, int shiftDays) {
+        int[] grownNights = new int[newDays * CELLS_PER_DAY];
+        int[] grownArrivals = new int[newDays * CELLS_PER_DAY];
+        long[] grownRevenue = new long[newDays * CELLS_PER_DAY];
+        int offset = shiftDays * CELLS_PER_DAY;
+        System.arraycopy(roomNights, 0, grownNights, offset, roomNights.length);
+        System.arraycopy(arrivals, 0, grownArrivals, offset, arrivals.length);
+        System.arraycopy(revenue, 0, grownRevenue, offset, revenue.length);
+        roomNights = grownNights;
+        arrivals = grownArrivals;
+        revenue = grownRevenue;
+        days = newDays;
+    }
+
+    /** Add another cube's figures into this one. */
+    public synchronized void merge(OccupancyCube other) {
+        synchronized (other) {
+            if (other.days == 0) return;
+            ensure(other.base, other.base + other.days);
+            int offset = (int) (other.base - base) * CELLS_PER_DAY;
+            for (int i = 0; i < other.roomNights.length; i++) {
+                roomNights[offset + i] += other.roomNights[i];
+                arrivals[offset + i] += other.arrivals[i];
+                revenue[offset + i] += other.revenue[i];
+            }
+        }
+    }
+
+    // ── Queries ──────────────────────────────────────────────────────────
+
+    /**
+     * Rooms sold (every status but Cancelled) for the nights from "from"
+     * through "to", inclusive. roomType null means all room types.
+     */
+    public Figures range(LocalDate from, LocalDate to, String roomType) {
+        return range(from, to, roomType, null);
+    }
+
+    /** As range(), for one status only; status null means all but Cancelled. */
+    public synchronized Figures range(LocalDate from, LocalDate to, String roomType, String status) {
+        int type = roomType == null ? -1 : indexOf(ROOM_TYPES, roomType);
+        int state = status == null ? -1 : indexOf(STATUSES, status);
+        if (roomType != null && type < 0 || status != null && state < 0) {
+            throw new IllegalArgumentException("Unknown room type or status: " + roomType + ", " + status);
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        long nights = 0, arriving = 0, money = 0;
+        long start = Math.max(first, base);
+        long end = Math.min(last + 1, base + days);
+        for (long day = start; day < end; day++) {
+            int dayCell = (int) (day - base) * CELLS_PER_DAY;
+            for (int t = 0; t < ROOM_TYPES.length; t++) {
+                if (type >= 0 && t != type) continue;
+                int cell = dayCell + t * STATUSES.length;
+                for (int s = 0; s < STATUSES.length; s++, cell++) {
+                    if (state >= 0 ? s != state : s == CANCELLED) continue;
+                    nights += roomNights[cell];
+                    arriving += arrivals[cell];
+                    money += revenue[cell];
+                }
+            }
+        }
+        long capacity = type >= 0 ? RoomInventory.capacityOf(roomType) : totalRooms();
+        return new Figures(from, to, nights, arriving, money, capacity * Math.max(0, last - first + 1));
+    }
+
+    /** One Figures per night from "from" through "to", inclusive. */
+    public List<Figures> daily(LocalDate from, LocalDate to, String roomType) {
+        List<Figures> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            result.add(range(day, day, roomType));
+        }
+        return result;
+    }
+
+    private static long totalRooms() {
+        long rooms = 0;
+        for (String roomType : ROOM_TYPES) {
+            rooms += RoomInventory.capacityOf(roomType);
+        }
+        return rooms;
+    }
+
+    // ── Building from scratch ────────────────────────────────────────────
+
+    /** A cube of the given reservations, counted in parallel. */
+    public static OccupancyCube build(Collection<Reservation> reservations) {
+        return reservations.parallelStream().collect(OccupancyCube::new, OccupancyCube::add, OccupancyCube::merge);
+    }
+
+    /**
+     * A cube of the reservations in the database, archived ones included,
+     * that have a night between from and to inclusive. Only those nights
+     * are meant to be read from it. The matching id range is split into
+     * partitions that are streamed on separate pooled connections, each
+     * into its own cube, and the partial cubes are merged at the end.
+     * Statuses are worked out against today, as Reservation.getStatus() does.
+     */
+    public static OccupancyCube buildFromDatabase(LocalDate from, LocalDate to) throws SQLException {
+        boolean withArchive = ReservationArchive.isAvailable();
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            for (String table : withArchive ? new String[]{"reservations", "reservations_archive"}
+                    : new String[]{"reservations"}) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT MIN(id), MAX(id) FROM " + table + " WHERE " + OVERLAPS)) {
+                    pstmt.setDate(1, java.sql.Date.valueOf(to));
+                    pstmt.setDate(2, java.sql.Date.valueOf(from));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        long low = rs.getLong(1);
+                        if (rs.wasNull()) continue;
+                        minId = Math.min(minId, low);
+                        maxId = Math.max(maxId, rs.getLong(2));
+                    }
+                }
+            }
+        }
+        if (minId > maxId) return new OccupancyCube();
+
+        long step = (maxId - minId) / DB_PARTITIONS + 1;
+        long today = StatusEngine.currentEpochDay();
+        ExecutorService executor = Executors.newFixedThreadPool(DB_PARTITIONS, r -> {
+            Thread t = new Thread(r, "cube-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<CompletableFuture<OccupancyCube>> parts = new ArrayList<>();
+            for (long low = minId; low <= maxId; low += step) {
+                long fromId = low, toId = low + step;
+                parts.add(CompletableFuture.supplyAsync(
+                        () -> loadPartition(fromId, toId, from, to, today, withArchive), executor));
+            }
+            OccupancyCube cube = new OccupancyCube();
+            for (CompletableFuture<OccupancyCube> part : parts) {
+                cube.merge(part.join());
+            }
+            return cube;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause != null && cause.getCause() instanceof SQLException) throw (SQLException) cause.getCause();
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Reservations with fromId <= id < toId; archived ids keep their original values. */
+    private static OccupancyCube loadPartition(long fromId, long toId, LocalDate from, LocalDate to,
+                                               long today, boolean withArchive) {
+        OccupancyCube cube = new OccupancyCube();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            loadPartition(conn, "reservations", fromId, toId, from, to, today, cube);
+            if (withArchive) loadPartition(conn, "reservations_archive", fromId, toId, from, to, today, cube);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load reservations " + fromId + "-" + toId, e);
+        }
+        return cube;
+    }
+
+    private static void loadPartition(Connection conn, String table, long fromId, long toId,
+                                      LocalDate from, LocalDate to, long today,
+                                      OccupancyCube cube) throws SQLException {
+        String sql = "SELECT room_type, check_in_date, check_out_date, total_cost, manual_status "
+                + "FROM " + table + " WHERE id >= ? AND id < ? AND " + OVERLAPS;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row instead of buffering the partition
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            pstmt.setLong(1, fromId);
+            pstmt.setLong(2, toId);
+            pstmt.setDate(3, java.sql.Date.valueOf(to));
+            pstmt.setDate(4, java.sql.Date.valueOf(from));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long checkIn = rs.getObject(2, LocalDate.class).toEpochDay();
+                    long checkOut = rs.getObject(3, LocalDate.class).toEpochDay();
+                    String manual = rs.getString(5);
+                    String status = manual != null && !manual.isEmpty() ? manual : autoStatus(today, checkIn, checkOut);
+                    cube.apply(rs.getString(1), status, checkIn, checkOut, rs.getLong(4), 1);
+                }
+            }
+        }
+    }
+
+    private static String autoStatus(long today, long checkIn, long checkOut) {
+        if (today < checkIn) return "Upcoming";
+        if (today >= checkOut) return "Completed";
+        return "Active";
+    }
+}
@@ -3,25 +3,52 @@ package resort;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.print.PrinterException;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import resort.CustomComponents.*;
 
 public class OceanResortSystem extends JFrame {
 
-    private HashMap<String, Reservation> reservations = new HashMap<>();
-    private JPanel contentArea;
-    private CardLayout cardLayout;
-    private DefaultTableModel tableModel;
+    private final ReservationStore reservations = new ReservationStore();
+    private final ReservationSync reservationSync = new ReservationSync();
+    private final ChangeFeed changeFeed = new ChangeFeed(reservations);
+    private final ReservationSearchIndex searchIndex = new ReservationSearchIndex();
+    private final ExecutorService searchExecutor =
+        Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "booking-search");
+            t.setDaemon(true);
+            return t;
+        });
+    private Future<?> pendingSearch;
+    private int searchGeneration = 0;
+    private PanelRegistry panels;
+    // Parsed invoice documents by rendered HTML, so re-showing an unchanged invoice skips the HTML parser
+    private final Map<String, javax.swing.text.Document> parsedInvoices = new LinkedHashMap<String, javax.swing.text.Document>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, javax.swing.text.Document> eldest) {
+            return size() > 16;
+        }
+    };
+    private ReservationTableModel tableModel;
     private JTable mainTable;
     private JLabel statusBar;
     private DashboardPanel dashboardPanel;
+    private ReportsPanel reportsPanel;
     private boolean useDatabase = false;
+    private volatile ReservationJournal journal = null;
+    private ReservationService reservationService;
+    private AsyncRepository repository;
+    private JProgressBar busyBar;
 
     // ✅ NEW: stores the role of the currently logged-in user
     private String currentRole = "ADMIN";
@@ -40,13 +67,15 @@ public class OceanResortSystem extends JFrame {
     }
 
     public OceanResortSystem() {
+        StatusEngine.watch(reservations);
+        RateEngine.loadPlan(Constants.RATES_FILE);
+        
         // Test database connection
         if (DatabaseConnection.testConnection()) {
             useDatabase = true;
             System.out.println("✓ Using DATABASE mode");
             DatabaseConnection.printConnectionInfo();
             DatabaseHandler.printDatabaseStats();
-            loadReservationsFromDatabase();
         } else {
             useDatabase = false;
             System.out.println("⚠ Database not available, using FILE mode");
@@ -54,8 +83,28 @@ public class OceanResortSystem extends JFrame {
                 "Could not connect to database.\nThe system will work in offline mode (file storage).\n\n" +
                 "To enable database:\n" +
                 JOptionPane.INFORMATION_MESSAGE);
+            openJournal();
+        }
+
+        reservationService = new ReservationService(reservations, useDatabase);
+        repository = new AsyncRepository(reservationService, reservationSync);
+        repository.setBusyListener(this::setBusy);
+
+        if (useDatabase) {
+            // Load while the login page is up
+            repository.refresh().whenComplete((changed, ex) -> {
+                reservations.getInventory().reportOverbooking();
+                if (dashboardPanel != null) dashboardPanel.updateStats();
+                // Other desks' changes arrive through the feed instead of REFRESH
+                changeFeed.startTailing(reservationSync, reservations, Constants.CHANGE_POLL_MS);
+                // Move stays past the archive horizon out of the hot table
+                ReservationArchive.startBackground();
+            });
         }
 
+        // Build the search index off the EDT; searches queue up behind it
+        searchExecutor.submit(() -> searchIndex.attach(reservations));
+
         showLoginUI();
     }
 
@@ -84,8 +133,13 @@ public class OceanResortSystem extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                repository.shutdown();
                 if(useDatabase) {
+                    changeFeed.stopTailing();
+                    AuditLogWriter.shutdown();
                     DatabaseConnection.closeConnection();
+                } else if(journal != null) {
+                    journal.close();
                 }
                 System.exit(0);
             }
@@ -122,32 +176,63 @@ public class OceanResortSystem extends JFrame {
             sidebar.add(btn);
         }
 
-        cardLayout = new CardLayout();
-        contentArea = new JPanel(cardLayout);
-
-        dashboardPanel = new DashboardPanel(reservations, e -> navigate(e.getActionCommand()));
-        contentArea.add(dashboardPanel, "Dashboard");
-        contentArea.add(new ReservationPanel(reservations, this::saveReservations, this::updateStatus), "New Reservation");
-        contentArea.add(createTablePanel(), "All Bookings");
-        contentArea.add(createBillingPanel(), "Billing");
-        contentArea.add(new ReportsPanel(reservations), "Reports");
-        contentArea.add(new HelpPanel(), "Help");
+        // Screens from a previous login stop listening
+        if(panels != null) panels.close();
+        if(dashboardPanel != null) changeFeed.unsubscribe(dashboardPanel);
+        if(reportsPanel != null) changeFeed.unsubscribe(reportsPanel);
+        if(tableModel != null) reservations.removeListener(tableModel);
+        reportsPanel = null;
+        tableModel = null;
+
+        // Only the dashboard is built before the window appears; the rest
+        // are built on first use or warmed once it has painted
+        panels = new PanelRegistry();
+        panels.register("Dashboard", () -> {
+            dashboardPanel = new DashboardPanel(reservations, useDatabase, e -> navigate(e.getActionCommand()));
+            dashboardPanel.updateStats();
+            changeFeed.subscribe(dashboardPanel);
+            return dashboardPanel;
+        });
+        panels.register("New Reservation", () ->
+            new ReservationPanel(repository, this::saveReservations, this::updateStatus));
+        panels.register("All Bookings",
+            () -> new ReservationTableModel(reservations),
+            this::createTablePanel,
+            model -> reservations.removeListener(model));
+        panels.register("Billing", this::createBillingPanel);
+        panels.register("Reports", () -> {
+            reportsPanel = new ReportsPanel(reservations, useDatabase);
+            changeFeed.subscribe(reportsPanel);
+            return reportsPanel;
+        });
+        panels.register("Help", HelpPanel::new);
+        panels.warmAfterFirstFrame("New Reservation", "All Bookings", "Billing", "Reports");
+        panels.show("Dashboard");
 
         container.add(sidebar, BorderLayout.WEST);
-        container.add(contentArea, BorderLayout.CENTER);
+        container.add(panels.getContainer(), BorderLayout.CENTER);
 
         statusBar = new JLabel("  Ready | " + currentRole + " | " + (useDatabase ? "Database Mode" : "File Mode"));
         statusBar.setFont(Constants.PLAIN_FONT);
-        statusBar.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createMatteBorder(1, 0, 0, 0, new Color(200, 200, 200)),
-            new EmptyBorder(5, 10, 5, 10)));
+        statusBar.setBorder(new EmptyBorder(5, 10, 5, 10));
         statusBar.setOpaque(true);
         statusBar.setBackground(new Color(250, 250, 250));
         statusBar.setForeground(useDatabase ? new Color(0, 150, 0) : new Color(200, 100, 0));
-        container.add(statusBar, BorderLayout.SOUTH);
+        busyBar = new JProgressBar();
+        busyBar.setIndeterminate(true);
+        busyBar.setPreferredSize(new Dimension(120, 12));
+        busyBar.setVisible(false);
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.setBackground(new Color(250, 250, 250));
+        statusPanel.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, new Color(200, 200, 200)));
+        statusPanel.add(statusBar, BorderLayout.CENTER);
+        JPanel busyPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 8));
+        busyPanel.setBackground(new Color(250, 250, 250));
+        busyPanel.add(busyBar);
+        statusPanel.add(busyPanel, BorderLayout.EAST);
+        container.add(statusPanel, BorderLayout.SOUTH);
 
         setContentPane(container);
-        dashboardPanel.updateStats();
         revalidate();
         setVisible(true);
     }
@@ -158,25 +243,20 @@ public class OceanResortSystem extends JFrame {
             showLoginUI();
         } else {
             if(screen.equals("Dashboard")) dashboardPanel.updateStats();
-            if(screen.equals("All Bookings")) {
-                if(useDatabase) loadReservationsFromDatabase();
-                refreshTable();
+            if(screen.equals("All Bookings") && useDatabase) {
+                // The table model picks up whatever the sync changes
+                loadReservationsFromDatabase();
             }
-            cardLayout.show(contentArea, screen);
+            panels.show(screen);
         }
     }
 
-    private JPanel createTablePanel() {
+    private JPanel createTablePanel(ReservationTableModel model) {
         JPanel p = new JPanel(new BorderLayout());
         p.setBackground(Constants.LIGHT_BG);
         p.setBorder(new EmptyBorder(40, 40, 40, 40));
 
-        tableModel = new DefaultTableModel(
-            new String[]{"ID", "Guest Name", "Room", "Check-In", "Check-Out", "Nights", "Status", "Cost (LKR)"}, 0
-        ) {
-            @Override
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        tableModel = model;
 
         mainTable = new JTable(tableModel);
         mainTable.setRowHeight(35);
@@ -184,29 +264,17 @@ public class OceanResortSystem extends JFrame {
         mainTable.getTableHeader().setFont(new Font("SansSerif", Font.BOLD, 13));
         mainTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(tableModel);
+        TableRowSorter<ReservationTableModel> sorter = new TableRowSorter<>(tableModel);
         mainTable.setRowSorter(sorter);
 
         ModernTextField searchField = new ModernTextField();
         searchField.setPreferredSize(new Dimension(200, 35));
+        // Debounce keystrokes, then search the index off the EDT
+        javax.swing.Timer searchDebounce = new javax.swing.Timer(200, e -> runSearch(searchField.getText(), sorter));
+        searchDebounce.setRepeats(false);
         searchField.addKeyListener(new KeyAdapter() {
             public void keyReleased(KeyEvent e) {
-                String text = searchField.getText();
-                if(text.trim().isEmpty()) {
-                    sorter.setRowFilter(null);
-                } else {
-                    sorter.setRowFilter(new RowFilter<DefaultTableModel, Integer>() {
-                        public boolean include(Entry<? extends DefaultTableModel, ? extends Integer> entry) {
-                            String searchLower = text.toLowerCase();
-                            for (int i = 0; i < entry.getValueCount(); i++) {
-                                if (entry.getStringValue(i).toLowerCase().contains(searchLower)) {
-                                    return true;
-                                }
-                            }
-                            return false;
-                        }
-                    });
-                }
+                searchDebounce.restart();
             }
         });
 
@@ -225,9 +293,10 @@ public class OceanResortSystem extends JFrame {
         ActionButton refreshBtn = new ActionButton("REFRESH", Constants.PRIMARY_COLOR);
         refreshBtn.setPreferredSize(new Dimension(120, 35));
         refreshBtn.addActionListener(e -> {
-            if(useDatabase) loadReservationsFromDatabase();
-            refreshTable();
-            updateStatus("✓ Data refreshed", false);
+            repository.refresh().whenComplete((changed, ex) -> {
+                if(ex == null && changed >= 0) updateStatus("✓ Data refreshed", false);
+                else updateStatus("Could not refresh from database", true);
+            });
         });
 
         ActionButton viewDetailsBtn = new ActionButton("VIEW DETAILS", Constants.ACCENT_COLOR);
@@ -265,6 +334,38 @@ public class OceanResortSystem extends JFrame {
         return p;
     }
 
+    /**
+     * Run a search on the background executor, cancelling any search still
+     * in progress, and show only the matching rows when it completes.
+     */
+    private void runSearch(String text, TableRowSorter<ReservationTableModel> sorter) {
+        int generation = ++searchGeneration;
+        if(pendingSearch != null) {
+            pendingSearch.cancel(true);
+        }
+        if(text.trim().isEmpty()) {
+            pendingSearch = null;
+            sorter.setRowFilter(null);
+            return;
+        }
+        pendingSearch = searchExecutor.submit(() -> {
+            Set<String> matches;
+            try {
+                matches = searchIndex.search(text);
+            } catch (CancellationException ex) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if(generation != searchGeneration) return; // superseded
+                sorter.setRowFilter(new RowFilter<ReservationTableModel, Integer>() {
+                    public boolean include(Entry<? extends ReservationTableModel, ? extends Integer> entry) {
+                        return matches.contains(entry.getModel().getReservationAt(entry.getIdentifier()).getResNo());
+                    }
+                });
+            });
+        });
+    }
+
     private void deleteReservation() {
         // ✅ Extra guard — double check role before deleting
         if (!isAdmin()) {
@@ -286,21 +387,14 @@ public class OceanResortSystem extends JFrame {
             "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if(confirm == JOptionPane.YES_OPTION) {
-            if(useDatabase) {
-                if (DatabaseHandler.deleteReservation(resId)) {
-                    reservations.remove(resId);
-                    refreshTable();
-                    dashboardPanel.updateStats();
-                    updateStatus("✓ Reservation deleted from database", false);
-                } else {
-                    updateStatus("Failed to delete reservation", true);
+            repository.delete(resId).whenComplete((v, ex) -> {
+                if(ex != null) {
+                    updateStatus(AsyncRepository.cause(ex).getMessage(), true);
+                    return;
                 }
-            } else {
-                reservations.remove(resId);
-                saveReservations();
-                refreshTable();
-                updateStatus("✓ Reservation deleted", false);
-            }
+                dashboardPanel.updateStats();
+                updateStatus(useDatabase ? "✓ Reservation deleted from database" : "✓ Reservation deleted", false);
+            });
         }
     }
 
@@ -347,12 +441,7 @@ public class OceanResortSystem extends JFrame {
                 "Confirm Check-Out", JOptionPane.YES_NO_OPTION);
 
             if(confirm == JOptionPane.YES_OPTION) {
-                r.setStatusManual("Checked-Out");
-                if(useDatabase) DatabaseHandler.updateReservation(r);
-                else saveReservations();
-                refreshTable();
-                dashboardPanel.updateStats();
-                updateStatus("✓ Guest checked out", false);
+                applyStatus(r, "Checked-Out", "✓ Guest checked out");
             }
         }
     }
@@ -380,16 +469,29 @@ public class OceanResortSystem extends JFrame {
                 "Confirm Cancellation", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
             if(confirm == JOptionPane.YES_OPTION) {
-                r.setStatusManual("Cancelled");
-                if(useDatabase) DatabaseHandler.updateReservation(r);
-                else saveReservations();
-                refreshTable();
-                dashboardPanel.updateStats();
-                updateStatus("✓ Reservation cancelled", false);
+                applyStatus(r, "Cancelled", "✓ Reservation cancelled");
             }
         }
     }
 
+    /** Change the status in the background; shows the reason if it was refused. */
+    private void applyStatus(Reservation r, String status, String doneMessage) {
+        repository.changeStatus(r, status).whenComplete((v, ex) -> {
+            if(ex != null) {
+                updateStatus(AsyncRepository.cause(ex).getMessage(), true);
+                return;
+            }
+            if(dashboardPanel != null) dashboardPanel.updateStats();
+            updateStatus(doneMessage, false);
+        });
+    }
+
+    /** Busy indicator while database work is running. */
+    private void setBusy(boolean busy) {
+        if(busyBar != null) busyBar.setVisible(busy);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+
     private void showReservationDetails(Reservation r) {
         JDialog dialog = new JDialog(this, "Reservation Details", true);
         dialog.setSize(550, 500);
@@ -400,7 +502,7 @@ public class OceanResortSystem extends JFrame {
         panel.setBorder(new EmptyBorder(20, 20, 20, 20));
         panel.setBackground(Color.WHITE);
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+        DateTimeFormatter formatter = InvoiceRenderer.DATE_FORMAT;
 
         String statusColor = "#00C896";
         String status = r.getStatus();
@@ -435,37 +537,22 @@ public class OceanResortSystem extends JFrame {
         if(status.equals("Active")) {
             ActionButton checkOutBtn = new ActionButton("CHECK OUT", Constants.WARNING_COLOR);
             checkOutBtn.addActionListener(e -> {
-                r.setStatusManual("Checked-Out");
-                if(useDatabase) DatabaseHandler.updateReservation(r);
-                else saveReservations();
-                refreshTable();
-                dashboardPanel.updateStats();
                 dialog.dispose();
-                updateStatus("✓ Guest checked out", false);
+                applyStatus(r, "Checked-Out", "✓ Guest checked out");
             });
             btnPanel.add(checkOutBtn);
 
             ActionButton cancelBtn = new ActionButton("CANCEL", Constants.DANGER_COLOR);
             cancelBtn.addActionListener(e -> {
-                r.setStatusManual("Cancelled");
-                if(useDatabase) DatabaseHandler.updateReservation(r);
-                else saveReservations();
-                refreshTable();
-                dashboardPanel.updateStats();
                 dialog.dispose();
-                updateStatus("✓ Reservation cancelled", false);
+                applyStatus(r, "Cancelled", "✓ Reservation cancelled");
             });
             btnPanel.add(cancelBtn);
         } else if(status.equals("Upcoming")) {
             ActionButton cancelBtn = new ActionButton("CANCEL", Constants.DANGER_COLOR);
             cancelBtn.addActionListener(e -> {
-                r.setStatusManual("Cancelled");
-                if(useDatabase) DatabaseHandler.updateReservation(r);
-                else saveReservations();
-                refreshTable();
-                dashboardPanel.updateStats();
                 dialog.dispose();
-                updateStatus("✓ Reservation cancelled", false);
+                applyStatus(r, "Cancelled", "✓ Reservation cancelled");
             });
             btnPanel.add(cancelBtn);
         }
@@ -482,6 +569,17 @@ public class OceanResortSystem extends JFrame {
         dialog.setVisible(true);
     }
 
+    private void showInvoice(JEditorPane invoice, Reservation r) {
+        // Unchanged reservations reuse both the rendered HTML and its parsed document
+        String content = InvoiceRenderer.render(r);
+        javax.swing.text.Document doc = parsedInvoices.get(content);
+        if(doc == null) {
+            doc = parseInvoice(invoice, content);
+            parsedInvoices.put(content, doc);
+        }
+        if(invoice.getDocument() != doc) invoice.setDocument(doc);
+    }
+
     private JPanel createBillingPanel() {
         JPanel p = new JPanel(new BorderLayout());
         p.setBackground(Constants.LIGHT_BG);
@@ -497,6 +595,8 @@ public class OceanResortSystem extends JFrame {
         ActionButton gen = new ActionButton("GENERATE INVOICE", Constants.PRIMARY_COLOR);
         ActionButton print = new ActionButton("PRINT", Constants.ACCENT_COLOR);
         print.setEnabled(false);
+        ActionButton monthEnd = new ActionButton("MONTH-END RUN", Constants.WARNING_COLOR);
+        monthEnd.addActionListener(e -> runMonthEndInvoices(monthEnd));
 
         gen.addActionListener(e -> {
             String id = search.getText().trim();
@@ -507,37 +607,28 @@ public class OceanResortSystem extends JFrame {
 
             Reservation r = reservations.get(id);
             if(r != null) {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy");
-                long nights = r.getNights();
-
-                String content = "<html><body style='font-family:sans-serif; padding:20px;'>"
-                        + "<div style='text-align:center;'>"
-                        + "<h1 style='color:#0066CC; margin:0;'>🌊 OCEAN RESORT</h1>"
-                        + "<p style='color:#666;'>Luxury Beach Resort & Spa</p><hr style='border:1px solid #ddd;'></div>"
-                        + "<h2 style='color:#333;'>Guest Invoice</h2>"
-                        + "<table style='width:100%; margin-top:20px; border-collapse:collapse;'>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Reservation ID:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getResNo() + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Guest Name:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getName() + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Contact:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getContact() + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Room Type:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getRoomType() + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Check-In:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getCheckIn().format(formatter) + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Check-Out:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getCheckOut().format(formatter) + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Number of Nights:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + nights + "</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Rate per Night:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + String.format("%,d", r.getTotalCost()/nights) + " LKR</td></tr>"
-                        + "<tr><td style='padding:8px; border-bottom:1px solid #eee;'><b>Status:</b></td><td style='padding:8px; border-bottom:1px solid #eee;'>" + r.getStatus() + "</td></tr>"
-                        + "</table>"
-                        + "<div style='margin-top:30px; background:#f5f5f5; padding:15px; border-left:4px solid #00C896;'>"
-                        + "<h2 style='margin:0; color:#00C896;'>Total Amount: " + String.format("%,d", r.getTotalCost()) + " LKR</h2></div>"
-                        + "<p style='margin-top:30px; color:#666; font-size:12px; text-align:center;'>Thank you for choosing Ocean Resort!<br>Contact: +94 11 234 5678 | Email: info@oceanresort.lk</p>"
-                        + "</body></html>";
-                invoice.setText(content);
+                showInvoice(invoice, r);
                 print.setEnabled(true);
                 updateStatus("✓ Invoice generated", false);
-            } else {
-                updateStatus("No reservation found for ID: " + id, true);
+                return;
+            }
+            // Old stays are no longer in memory; reprint them from the archive
+            gen.setEnabled(false);
+            repository.findArchived(id).whenComplete((archived, ex) -> {
+                gen.setEnabled(true);
+                if(ex != null) {
+                    updateStatus("Could not search the archive: " + AsyncRepository.cause(ex).getMessage(), true);
+                } else if(archived != null) {
+                    showInvoice(invoice, archived);
+                    print.setEnabled(true);
+                    updateStatus("✓ Invoice generated from the archive", false);
+                    return;
+                } else {
+                    updateStatus("No reservation found for ID: " + id, true);
+                }
                 invoice.setText("");
                 print.setEnabled(false);
-            }
+            });
         });
 
         print.addActionListener(e -> {
@@ -556,6 +647,7 @@ public class OceanResortSystem extends JFrame {
         topPanel.add(search);
         topPanel.add(gen);
         topPanel.add(print);
+        topPanel.add(monthEnd);
 
         JLabel header = new JLabel("<html><h2 style='color:#333'>💳 Billing & Invoice</h2></html>");
         header.setBorder(new EmptyBorder(0, 0, 20, 0));
@@ -574,15 +666,81 @@ public class OceanResortSystem extends JFrame {
         return p;
     }
 
-    private void refreshTable() {
-        tableModel.setRowCount(0);
-        for(Reservation r : reservations.values()) {
-            tableModel.addRow(new Object[]{
-                r.getResNo(), r.getName(), r.getRoomType(),
-                r.getCheckIn(), r.getCheckOut(), r.getNights(),
-                r.getStatus(), String.format("%,d", r.getTotalCost())
-            });
+    private javax.swing.text.Document parseInvoice(JEditorPane pane, String html) {
+        javax.swing.text.EditorKit kit = pane.getEditorKit();
+        javax.swing.text.Document doc = kit.createDefaultDocument();
+        try {
+            kit.read(new java.io.StringReader(html), doc, 0);
+        } catch (IOException | javax.swing.text.BadLocationException ex) {
+            throw new IllegalStateException("Could not lay out invoice", ex);
         }
+        return doc;
+    }
+
+    /** Render every invoice for guests checking out in a month, to one HTML file or the printer. */
+    private void runMonthEndInvoices(JButton button) {
+        String month = JOptionPane.showInputDialog(this, "Month (yyyy-MM):", YearMonth.now().toString());
+        if(month == null) return;
+        YearMonth ym;
+        try {
+            ym = YearMonth.parse(month.trim());
+        } catch (java.time.format.DateTimeParseException ex) {
+            updateStatus("Month must be in yyyy-MM format", true);
+            return;
+        }
+        java.util.List<Reservation> batch = InvoiceRenderer.checkingOutIn(reservations, ym.getYear(), ym.getMonthValue());
+        if(batch.isEmpty()) {
+            updateStatus("No check-outs in " + ym, true);
+            return;
+        }
+        Object[] options = {"Save as HTML", "Print", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this, batch.size() + " invoices for " + ym + ".", "Month-End Invoices",
+            JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        java.io.File file = null;
+        java.awt.print.PrinterJob job = null;
+        if(choice == 0) {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setSelectedFile(new java.io.File("invoices-" + ym + ".html"));
+            if(chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            file = chooser.getSelectedFile();
+        } else if(choice == 1) {
+            job = java.awt.print.PrinterJob.getPrinterJob();
+            job.setPrintable(InvoiceRenderer.printable(batch));
+            if(!job.printDialog()) return;
+        } else {
+            return;
+        }
+
+        java.io.File target = file;
+        java.awt.print.PrinterJob printJob = job;
+        button.setEnabled(false);
+        updateStatus("Rendering " + batch.size() + " invoices...", false);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                if(target != null) {
+                    try (java.io.Writer out = new java.io.BufferedWriter(new java.io.OutputStreamWriter(
+                            new java.io.FileOutputStream(target), java.nio.charset.StandardCharsets.UTF_8), 1 << 16)) {
+                        InvoiceRenderer.renderBatch(batch, out);
+                    }
+                } else {
+                    printJob.print();
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    get();
+                    updateStatus("✓ " + batch.size() + " invoices " + (target != null ? "saved to " + target.getName() : "sent to printer"), false);
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    updateStatus("Month-end run failed: " + cause.getMessage(), true);
+                }
+            }
+        }.execute();
     }
 
     private void saveReservations() {
@@ -595,7 +753,40 @@ public class OceanResortSystem extends JFrame {
     }
 
     private void loadReservationsFromDatabase() {
-        reservations = DatabaseHandler.loadAllReservations();
+        // Merge only what changed since the last sync into the shared map
+        repository.refresh().whenComplete((changed, ex) -> {
+            if (ex != null || changed < 0) updateStatus("Could not refresh from database", true);
+        });
+    }
+
+    private void openJournal() {
+        // FILE mode: load the snapshot and journal in the background so the
+        // login page comes up straight away; every later change is journaled
+        Thread loader = new Thread(() -> {
+            try {
+                journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+                reservations.getInventory().reportOverbooking();
+                SwingUtilities.invokeLater(() -> {
+                    if (dashboardPanel != null) dashboardPanel.updateStats();
+                });
+            } catch (ReservationJournal.LockedException e) {
+                // Two writers would corrupt the log; don't let this one start
+                System.err.println("ERROR: " + e.getMessage());
+                SwingUtilities.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(this, e.getMessage(), "Reservations In Use", JOptionPane.ERROR_MESSAGE);
+                    System.exit(1);
+                });
+            } catch (IOException e) {
+                System.err.println("ERROR: Could not open " + Constants.JOURNAL_FILE + ", changes will not be saved");
+                e.printStackTrace();
+            }
+        }, "reservation-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public AsyncRepository getRepository() {
+        return repository;
     }
 
     public boolean isUsingDatabase() {
@@ -603,12 +794,18 @@ public class OceanResortSystem extends JFrame {
     }
 
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--server")) {
+            ResortServer.main(args);
+            return;
+        }
+
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
             // Use default look and feel
         }
 
+        EdtWatchdog.install();
         SwingUtilities.invokeLater(() -> new OceanResortSystem());
     }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package resort;
+
+import java.awt.CardLayout;
+import java.awt.BorderLayout;
+import java.awt.Graphics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * The main window's screens, built the first time they are shown.
+ *
+ * A screen can have a prepare step that does the data work (for example
+ * copying every reservation into a table model). Warming runs that step on
+ * a background thread and then builds the Swing part on the event thread,
+ * one screen per turn, so the first screen appears without waiting for the
+ * others and later navigation is instant.
+ *
+ * Each screen logs how long it took from being asked for to its first
+ * paint.
+ */
+public class PanelRegistry {
+
+    private static final ExecutorService warmer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "panel-warmer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private final JPanel container;
+    private final CardLayout layout = new CardLayout();
+    private final Map<String, Card<?>> cards = new LinkedHashMap<>();
+    private final long createdAt = System.nanoTime();
+    private String[] warmAfterFirstFrame = new String[0];
+    private boolean firstFrameSeen = false;
+    private volatile boolean closed = false;
+
+    private final class Card<T> {
+        final String name;
+        final Callable<T> prepare;
+        final Function<T, JComponent> build;
+        final Consumer<T> discard;
+        CompletableFuture<T> prepared;
+        JComponent component;
+        long requestedAt;
+
+        Card(String name, Callable<T> prepare, Function<T, JComponent> build, Consumer<T> discard) {
+            this.name = name;
+            this.prepare = prepare;
+            this.build = build;
+            this.discard = discard;
+        }
+
+        /** Start the prepare step in the background, if it hasn't started. */
+        void prepareInBackground() {
+            if (prepared != null) return;
+            prepared = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return prepare.call();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not prepare " + name, e);
+                }
+            }, warmer);
+        }
+
+        void buildNow() {
+            if (component != null) return;
+            T data;
+            try {
+                if (prepared == null) {
+                    data = prepare.call();
+                } else {
+                    data = prepared.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not prepare " + name, e.getCause());
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not prepare " + name, e);
+            }
+            component = build.apply(data);
+            container.add(new FirstFrame(this), name);
+        }
+
+        void discardPrepared() {
+            if (component != null || prepared == null || discard == null) return;
+            prepared.thenAccept(discard);
+        }
+    }
+
+    /** Wraps a screen to notice its first paint. */
+    private final class FirstFrame extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        private final Card<?> card;
+        private boolean painted = false;
+
+        FirstFrame(Card<?> card) {
+            super(new BorderLayout());
+            this.card = card;
+            add(card.component, BorderLayout.CENTER);
+        }
+
+        @Override
+        public void paint(Graphics g) {
+            super.paint(g);
+            if (painted || card.requestedAt == 0) return;
+            painted = true;
+            long ms = (System.nanoTime() - card.requestedAt) / 1_000_000;
+            System.out.println("✓ " + card.name + " first frame in " + ms + " ms");
+            if (!firstFrameSeen) {
+                firstFrameSeen = true;
+                SwingUtilities.invokeLater(PanelRegistry.this::startWarming);
+            }
+        }
+    }
+
+    public PanelRegistry() {
+        container = new JPanel(layout);
+    }
+
+    public JPanel getContainer() {
+        return container;
+    }
+
+    /** A screen with no data to prepare. */
+    public void register(String name, Supplier<JComponent> build) {
+        register(name, () -> null, data -> build.get(), null);
+    }
+
+    /**
+     * A screen whose data is prepared off the event thread. discard (may be
+     * null) releases prepared data that was never shown.
+     */
+    public <T> void register(String name, Callable<T> prepare, Function<T, JComponent> build, Consumer<T> discard) {
+        cards.put(name, new Card<>(name, prepare, build, discard));
+    }
+
+    /** Screens to build in the background once the first screen has painted. */
+    public void warmAfterFirstFrame(String... names) {
+        warmAfterFirstFrame = names;
+    }
+
+    /** Show a screen, building it first if needed. Event thread only. */
+    public void show(String name) {
+        Card<?> card = cards.get(name);
+        if (card == null) return;
+        if (card.component == null) {
+            // The very first screen counts from when the window was set up
+            card.requestedAt = firstFrameSeen ? System.nanoTime() : createdAt;
+            card.buildNow();
+            container.revalidate();
+        }
+        layout.show(container, name);
+    }
+
+    public boolean isBuilt(String name) {
+        Card<?> card = cards.get(name);
+        return card != null && card.component != null;
+    }
+
+    private void startWarming() {
+        for (String name : warmAfterFirstFrame) {
+            Card<?> card = cards.get(name);
+            if (card == null || card.component != null) continue;
+            card.prepareInBackground();
+            // Build on the event thread once the data is ready, one screen per turn
+            card.prepared.whenComplete((data, error) -> SwingUtilities.invokeLater(() -> {
+                if (closed || card.component != null) return;
+                if (error != null) {
+                    // Showing the screen will retry and report the failure
+                    System.err.println("WARNING: Could not warm " + name + ": " + error.getMessage());
+                    card.prepared = null;
+                    return;
+                }
+                card.buildNow();
+            }));
+        }
+    }
+
+    /** The window is being rebuilt (for example after logout); drop unshown screens. */
+    public void close() {
+        closed = true;
+        for (Card<?> card : cards.values()) {
+            card.discardPrepared();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package resort;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly room rates and stay quotes.
+ *
+ * A RatePlan gives each room type a base rate, adjusted per night by a
+ * weekend surcharge, seasons and promotions (all in percent). For a window
+ * of days around today the engine keeps, per room type, a prefix sum of
+ * nightly rates, so the price of any stay inside the window is one
+ * subtraction. Stays outside the window are summed night by night.
+ *
+ * Rates can be overridden in rates.properties, for example:
+ *   rate.Suite=20000
+ *   weekend.percent=10
+ *   season.1=2026-12-15,2027-01-05,25
+ *   promo.1=2026-06-01,2026-06-30,Suite,-10
+ * Without the file the plan is the flat 8000 / 12000 / 20000 LKR.
+ */
+public class RateEngine {
+
+    // Days before and after today covered by the prefix sums
+    private static final int DAYS_BEFORE = 366;
+    private static final int DAYS_AFTER = 3 * 366;
+
+    /** One dated percentage adjustment; roomType null means all types. */
+    public static final class Adjustment {
+        final LocalDate from, to; // both inclusive
+        final String roomType;
+        final int percent;
+
+        public Adjustment(LocalDate from, LocalDate to, String roomType, int percent) {
+            this.from = from;
+            this.to = to;
+            this.roomType = roomType;
+            this.percent = percent;
+        }
+
+        boolean covers(String type, LocalDate night) {
+            return (roomType == null || roomType.equals(type)) && !night.isBefore(from) && !night.isAfter(to);
+        }
+    }
+
+    /** Base rates plus the adjustments applied on top of them. */
+    public static final class RatePlan {
+        final Map<String, Long> baseRates = new HashMap<>();
+        long defaultRate = 20000;
+        int weekendPercent = 0;
+        final List<Adjustment> seasons = new ArrayList<>();
+        final List<Adjustment> promotions = new ArrayList<>();
+
+        public static RatePlan standard() {
+            RatePlan plan = new RatePlan();
+            plan.baseRates.put("Single", 8000L);
+            plan.baseRates.put("Double", 12000L);
+            plan.baseRates.put("Suite", 20000L);
+            return plan;
+        }
+
+        public void setBaseRate(String roomType, long rate) {
+            baseRates.put(roomType, rate);
+        }
+
+        public void setWeekendPercent(int percent) {
+            weekendPercent = percent;
+        }
+
+        public void addSeason(Adjustment season) {
+            seasons.add(season);
+        }
+
+        public void addPromotion(Adjustment promotion) {
+            promotions.add(promotion);
+        }
+
+        long nightlyRate(String roomType, LocalDate night) {
+            long rate = baseRates.getOrDefault(roomType, defaultRate);
+            int percent = 0;
+            DayOfWeek dow = night.getDayOfWeek();
+            if (dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SATURDAY) percent += weekendPercent;
+            for (Adjustment a : seasons) {
+                if (a.covers(roomType, night)) percent += a.percent;
+            }
+            for (Adjustment a : promotions) {
+                if (a.covers(roomType, night)) percent += a.percent;
+            }
+            return Math.max(0, rate * (100 + percent) / 100);
+        }
+    }
+
+    /** Prefix sums of one plan, immutable once built. */
+    private static final class Table {
+        final RatePlan plan;
+        final long firstDay;
+        final Map<String, long[]> prefix = new HashMap<>();
+
+        Table(RatePlan plan, long today) {
+            this.plan = plan;
+            this.firstDay = today - DAYS_BEFORE;
+            for (String roomType : plan.baseRates.keySet()) {
+                long[] sums = new long[DAYS_BEFORE + DAYS_AFTER + 1];
+                for (int i = 1; i < sums.length; i++) {
+                    sums[i] = sums[i - 1] + plan.nightlyRate(roomType, LocalDate.ofEpochDay(firstDay + i - 1));
+                }
+                prefix.put(roomType, sums);
+            }
+        }
+    }
+
+    private static volatile Table table = new Table(RatePlan.standard(), StatusEngine.currentEpochDay());
+
+    /** Switch to a new plan. Existing reservations keep their price until repriced. */
+    public static void setPlan(RatePlan plan) {
+        table = new Table(plan, StatusEngine.currentEpochDay());
+    }
+
+    public static long nightlyRate(String roomType, LocalDate night) {
+        return table.plan.nightlyRate(roomType, night);
+    }
+
+    /**
+     * Price of a stay from check-in up to (not including) check-out. A stay
+     * of less than one night is charged one night.
+     */
+    public static long quote(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        long from = checkIn.toEpochDay();
+        long to = Math.max(from + 1, checkOut.toEpochDay());
+        Table t = table;
+        if (StatusEngine.currentEpochDay() - DAYS_BEFORE > t.firstDay + DAYS_BEFORE / 2) {
+            // The window has drifted too far behind today, re-centre it
+            t = new Table(t.plan, StatusEngine.currentEpochDay());
+            table = t;
+        }
+        long[] sums = t.prefix.get(roomType);
+        if (sums != null && from >= t.firstDay && to - t.firstDay < sums.length) {
+            return sums[(int) (to - t.firstDay)] - sums[(int) (from - t.firstDay)];
+        }
+        long total = 0;
+        for (long day = from; day < to; day++) {
+            total += t.plan.nightlyRate(roomType, LocalDate.ofEpochDay(day));
+        }
+        return total;
+    }
+
+    /**
+     * Load rates.properties if present, otherwise keep the standard plan.
+     */
+    public static void loadPlan(String fileName) {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(fileName)) {
+            props.load(in);
+        } catch (java.io.FileNotFoundException e) {
+            return;
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not read " + fileName + ", using standard rates");
+            return;
+        }
+        try {
+            RatePlan plan = RatePlan.standard();
+            for (String key : props.stringPropertyNames()) {
+                String value = props.getProperty(key).trim();
+                if (key.startsWith("rate.")) {
+                    plan.setBaseRate(key.substring(5), Long.parseLong(value));
+                } else if (key.equals("weekend.percent")) {
+                    plan.setWeekendPercent(Integer.parseInt(value));
+                } else if (key.startsWith("season.")) {
+                    String[] f = value.split(",");
+                    plan.addSeason(new Adjustment(LocalDate.parse(f[0].trim()), LocalDate.parse(f[1].trim()),
+                            null, Integer.parseInt(f[2].trim())));
+                } else if (key.startsWith("promo.")) {
+                    String[] f = value.split(",");
+                    plan.addPromotion(new Adjustment(LocalDate.parse(f[0].trim()), LocalDate.parse(f[1].trim()),
+                            f[2].trim(), Integer.parseInt(f[3].trim())));
+                }
+            }
+            setPlan(plan);
+            System.out.println("✓ Loaded rate plan from " + fileName);
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Invalid rate plan in " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-price every reservation that hasn't started yet under the current
+     * plan. Quotes are computed once, in parallel. With useDatabase the new
+     * prices are saved in one batch first, and only the rows the batch
+     * updated are changed in the store; rows another desk changed meanwhile
+     * are replaced by their current values instead. Returns the number
+     * re-priced.
+     */
+    public static int repriceFuture(ReservationStore store, boolean useDatabase) {
+        long today = StatusEngine.currentEpochDay();
+        List<Reservation> all = store.values();
+        Map<Reservation, Long> changed = all.parallelStream()
+                .filter(r -> !r.isManualStatus() && r.getCheckIn().toEpochDay() >= today)
+                .map(r -> new AbstractMap.SimpleEntry<>(r, quote(r.getRoomType(), r.getCheckIn(), r.getCheckOut())))
+                .filter(e -> e.getValue() != e.getKey().getTotalCost())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (changed.isEmpty()) return 0;
+
+        List<Reservation> saved = new ArrayList<>(changed.keySet());
+        List<Reservation> changedElsewhere = new ArrayList<>();
+        if (useDatabase) {
+            saved = DatabaseHandler.updateTotalCosts(changed, changedElsewhere);
+            if (saved == null) {
+                System.err.println("ERROR: Re-priced reservations could not be saved to the database, nothing was changed");
+                return 0;
+            }
+        }
+        synchronized (store) {
+            for (Reservation r : saved) {
+                r.setTotalCost(changed.get(r));
+                store.update(r);
+            }
+            for (Reservation current : changedElsewhere) {
+                store.put(current);
+            }
+        }
+        if (!changedElsewhere.isEmpty()) {
+            System.err.println("WARNING: " + changedElsewhere.size()
+                    + " reservations were changed by another desk meanwhile and were not re-priced");
+        }
+        System.out.println("✓ Re-priced " + saved.size() + " upcoming reservations");
+        return saved.size();
+    }
+}
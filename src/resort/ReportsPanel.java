@@ -1,19 +1,43 @@
 package resort;
 
 import java.awt.*;
-import java.util.HashMap;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import resort.CustomComponents.*;
 
-public class ReportsPanel extends JPanel {
+public class ReportsPanel extends JPanel implements ChangeFeed.Subscriber {
     
-    private HashMap<String, Reservation> reservations;
+    private ReservationStore reservations;
+    private boolean useDatabase;
     private JEditorPane reportArea;
+    private JScrollPane reportScroll;
+    // Set when a report is chosen, so it opens at the top; redraws keep their place
+    private boolean freshReport = true;
+    private Runnable currentReport = this::generateSummaryReport;
+    private BookingForecast.PickupCurve pickupCurve = null;
+    private SwingWorker<BookingForecast.PickupCurve, BookingForecast.PickupCurve> forecastWorker = null;
+    private final Runnable forecastReport = this::generateForecastReport;
+    private SwingWorker<String, Void> forecastRender = null;
+    private boolean forecastRedrawPending = false;
+    // Occupancy before the archive cutoff, read from the database on demand
+    // for the nights of one range only
+    private OccupancyCube historyCube = null;
+    private LocalDate historyFrom = null, historyTo = null;
+    private boolean showingHistory = false;
+    private String historyError = null;
+    private SwingWorker<OccupancyCube, Void> historyWorker = null;
     
-    public ReportsPanel(HashMap<String, Reservation> reservations) {
+    public ReportsPanel(ReservationStore reservations, boolean useDatabase) {
         this.reservations = reservations;
+        this.useDatabase = useDatabase;
         setupUI();
     }
     
@@ -33,14 +57,23 @@ public class ReportsPanel extends JPanel {
         ActionButton summaryBtn = new ActionButton("SUMMARY REPORT", Constants.PRIMARY_COLOR);
         ActionButton roomBtn = new ActionButton("ROOM ANALYSIS", Constants.ACCENT_COLOR);
         ActionButton statusBtn = new ActionButton("STATUS REPORT", Constants.WARNING_COLOR);
+        ActionButton occupancyBtn = new ActionButton("OCCUPANCY", Constants.DANGER_COLOR);
+        ActionButton forecastBtn = new ActionButton("FORECAST", Constants.PRIMARY_COLOR);
+        ActionButton exportBtn = new ActionButton("EXPORT", Constants.DARK_BG);
         
-        summaryBtn.addActionListener(e -> generateSummaryReport());
-        roomBtn.addActionListener(e -> generateRoomAnalysis());
-        statusBtn.addActionListener(e -> generateStatusReport());
+        summaryBtn.addActionListener(e -> show(this::generateSummaryReport));
+        roomBtn.addActionListener(e -> show(this::generateRoomAnalysis));
+        statusBtn.addActionListener(e -> show(this::generateStatusReport));
+        occupancyBtn.addActionListener(e -> chooseOccupancyRange());
+        forecastBtn.addActionListener(e -> startForecast());
+        exportBtn.addActionListener(e -> exportData(exportBtn));
         
         controlPanel.add(summaryBtn);
         controlPanel.add(roomBtn);
         controlPanel.add(statusBtn);
+        controlPanel.add(occupancyBtn);
+        controlPanel.add(forecastBtn);
+        controlPanel.add(exportBtn);
         
         JLabel header = new JLabel("<html><h2 style='color:#333'>📈 Reports & Analytics</h2></html>");
         header.setBorder(new EmptyBorder(0, 0, 20, 0));
@@ -48,7 +81,8 @@ public class ReportsPanel extends JPanel {
         JPanel centerPanel = new JPanel(new BorderLayout());
         centerPanel.setBackground(Constants.LIGHT_BG);
         centerPanel.add(controlPanel, BorderLayout.NORTH);
-        centerPanel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+        reportScroll = new JScrollPane(reportArea);
+        centerPanel.add(reportScroll, BorderLayout.CENTER);
         
         add(header, BorderLayout.NORTH);
         add(centerPanel, BorderLayout.CENTER);
@@ -57,24 +91,60 @@ public class ReportsPanel extends JPanel {
         generateSummaryReport();
     }
     
+    private void show(Runnable report) {
+        currentReport = report;
+        freshReport = true;
+        showingHistory = false;
+        report.run();
+    }
+    
+    @Override
+    public void reservationsChanged(Set<String> resNos) {
+        // Archived occupancy was read from the database for its range and
+        // does not follow the store; every other report reads running totals
+        if(showingHistory) return;
+        currentReport.run();
+    }
+    
+    /** Replace the report, keeping the scroll position unless a new report was chosen. */
+    private void render(String html) {
+        Point at = freshReport ? new Point(0, 0) : reportScroll.getViewport().getViewPosition();
+        freshReport = false;
+        reportArea.setText(html);
+        // After the new text is laid out and the caret has moved
+        SwingUtilities.invokeLater(() -> reportScroll.getViewport().setViewPosition(at));
+    }
+    
+    /**
+     * In DATABASE mode the store only holds the hot working set, so the
+     * running totals leave out archived stays. Says so under the title.
+     */
+    private String scopeNote() {
+        if(!useDatabase) return "";
+        return "<p style='color:#666;'>Covers stays checking out on or after " + ReservationArchive.hotCutoff()
+                + " (the last " + Constants.ARCHIVE_AFTER_DAYS + " days) and all current and future stays. "
+                + "Older stays are archived; OCCUPANCY and reservation EXPORT include them.</p>";
+    }
+    
     private void generateSummaryReport() {
-        long totalRev = reservations.values().stream().mapToLong(Reservation::getTotalCost).sum();
-        long upcomingCount = reservations.values().stream().filter(r -> r.getStatus().equals("Upcoming")).count();
-        long activeCount = reservations.values().stream().filter(r -> r.getStatus().equals("Active")).count();
-        long completedCount = reservations.values().stream().filter(r -> r.getStatus().equals("Completed")).count();
-        long checkedOutCount = reservations.values().stream().filter(r -> r.getStatus().equals("Checked-Out")).count();
-        long cancelledCount = reservations.values().stream().filter(r -> r.getStatus().equals("Cancelled")).count();
-        
-        Map<String, Long> roomCounts = new HashMap<>();
-        reservations.values().forEach(r -> 
-            roomCounts.put(r.getRoomType(), roomCounts.getOrDefault(r.getRoomType(), 0L) + 1)
-        );
+        ReservationStats stats = reservations.getStats();
+        long totalRev = stats.getTotalRevenue();
+        long upcomingCount = stats.getCount("Upcoming");
+        long activeCount = stats.getCount("Active");
+        long completedCount = stats.getCount("Completed");
+        long checkedOutCount = stats.getCount("Checked-Out");
+        long cancelledCount = stats.getCount("Cancelled");
         
-        String report = "<html><body style='font-family:sans-serif; padding:20px;'>"
-                + "<h1 style='color:#0066CC;'>📊 Summary Report</h1><hr>"
+        Map<String, Long> roomCounts = new LinkedHashMap<>();
+        for(String type : new String[]{"Single", "Double", "Suite"}) {
+            roomCounts.put(type, stats.getRoomTypeCount(type));
+        }
+        
+        StringBuilder report = new StringBuilder("<html><body style='font-family:sans-serif; padding:20px;'>"
+                + "<h1 style='color:#0066CC;'>📊 Summary Report</h1><hr>" + scopeNote()
                 + "<h3>Overall Statistics</h3>"
                 + "<table style='width:100%; border-collapse:collapse;'>"
-                + "<tr><td style='padding:10px; border-bottom:1px solid #ddd;'><b>Total Reservations:</b></td><td style='padding:10px; border-bottom:1px solid #ddd;'>" + reservations.size() + "</td></tr>"
+                + "<tr><td style='padding:10px; border-bottom:1px solid #ddd;'><b>Total Reservations:</b></td><td style='padding:10px; border-bottom:1px solid #ddd;'>" + stats.getTotalCount() + "</td></tr>"
                 + "<tr><td style='padding:10px; border-bottom:1px solid #ddd;'><b>Upcoming:</b></td><td style='padding:10px; border-bottom:1px solid #ddd;'>" + upcomingCount + "</td></tr>"
                 + "<tr><td style='padding:10px; border-bottom:1px solid #ddd;'><b>Active (Currently Staying):</b></td><td style='padding:10px; border-bottom:1px solid #ddd;'>" + activeCount + "</td></tr>"
                 + "<tr><td style='padding:10px; border-bottom:1px solid #ddd;'><b>Completed:</b></td><td style='padding:10px; border-bottom:1px solid #ddd;'>" + completedCount + "</td></tr>"
@@ -83,68 +153,62 @@ public class ReportsPanel extends JPanel {
                 + "<tr><td style='padding:10px; border-bottom:1px solid #ddd;'><b>Total Revenue:</b></td><td style='padding:10px; border-bottom:1px solid #ddd;'>" + String.format("%,d", totalRev) + " LKR</td></tr>"
                 + "</table>"
                 + "<h3 style='margin-top:30px;'>Bookings by Room Type</h3>"
-                + "<ul>";
+                + "<ul>");
         
         for(Map.Entry<String, Long> entry : roomCounts.entrySet()) {
-            report += "<li><b>" + entry.getKey() + ":</b> " + entry.getValue() + " bookings</li>";
+            report.append("<li><b>").append(entry.getKey()).append(":</b> ").append(entry.getValue()).append(" bookings</li>");
         }
         
-        report += "</ul></body></html>";
-        reportArea.setText(report);
+        report.append("</ul></body></html>");
+        render(report.toString());
     }
     
     private void generateRoomAnalysis() {
-        Map<String, Long> roomRevenue = new HashMap<>();
-        Map<String, Long> roomCount = new HashMap<>();
-        
-        reservations.values().forEach(r -> {
-            String type = r.getRoomType();
-            roomRevenue.put(type, roomRevenue.getOrDefault(type, 0L) + r.getTotalCost());
-            roomCount.put(type, roomCount.getOrDefault(type, 0L) + 1);
-        });
+        ReservationStats stats = reservations.getStats();
         
-        String report = "<html><body style='font-family:sans-serif; padding:20px;'>"
-                + "<h1 style='color:#0066CC;'>🏨 Room Type Analysis</h1><hr>"
+        StringBuilder report = new StringBuilder("<html><body style='font-family:sans-serif; padding:20px;'>"
+                + "<h1 style='color:#0066CC;'>🏨 Room Type Analysis</h1><hr>" + scopeNote()
                 + "<table style='width:100%; border-collapse:collapse; margin-top:20px;'>"
                 + "<tr style='background:#f5f5f5;'>"
                 + "<th style='padding:10px; text-align:left; border-bottom:2px solid #ddd;'>Room Type</th>"
                 + "<th style='padding:10px; text-align:left; border-bottom:2px solid #ddd;'>Bookings</th>"
                 + "<th style='padding:10px; text-align:left; border-bottom:2px solid #ddd;'>Revenue (LKR)</th>"
                 + "<th style='padding:10px; text-align:left; border-bottom:2px solid #ddd;'>Avg per Booking</th>"
-                + "</tr>";
+                + "</tr>");
         
         for(String type : new String[]{"Single", "Double", "Suite"}) {
-            long count = roomCount.getOrDefault(type, 0L);
-            long revenue = roomRevenue.getOrDefault(type, 0L);
+            long count = stats.getRoomTypeCount(type);
+            long revenue = stats.getRoomTypeRevenue(type);
             long avg = count > 0 ? revenue / count : 0;
             
-            report += "<tr>"
-                    + "<td style='padding:10px; border-bottom:1px solid #eee;'><b>" + type + "</b></td>"
-                    + "<td style='padding:10px; border-bottom:1px solid #eee;'>" + count + "</td>"
-                    + "<td style='padding:10px; border-bottom:1px solid #eee;'>" + String.format("%,d", revenue) + "</td>"
-                    + "<td style='padding:10px; border-bottom:1px solid #eee;'>" + String.format("%,d", avg) + "</td>"
-                    + "</tr>";
+            report.append("<tr>")
+                    .append("<td style='padding:10px; border-bottom:1px solid #eee;'><b>").append(type).append("</b></td>")
+                    .append("<td style='padding:10px; border-bottom:1px solid #eee;'>").append(count).append("</td>")
+                    .append("<td style='padding:10px; border-bottom:1px solid #eee;'>").append(String.format("%,d", revenue)).append("</td>")
+                    .append("<td style='padding:10px; border-bottom:1px solid #eee;'>").append(String.format("%,d", avg)).append("</td>")
+                    .append("</tr>");
         }
         
-        report += "</table></body></html>";
-        reportArea.setText(report);
+        report.append("</table></body></html>");
+        render(report.toString());
     }
     
     private void generateStatusReport() {
-        long upcomingCount = reservations.values().stream().filter(r -> r.getStatus().equals("Upcoming")).count();
-        long activeCount = reservations.values().stream().filter(r -> r.getStatus().equals("Active")).count();
-        long completedCount = reservations.values().stream().filter(r -> r.getStatus().equals("Completed")).count();
-        long checkedOutCount = reservations.values().stream().filter(r -> r.getStatus().equals("Checked-Out")).count();
-        long cancelledCount = reservations.values().stream().filter(r -> r.getStatus().equals("Cancelled")).count();
-        
-        long upcomingRevenue = reservations.values().stream().filter(r -> r.getStatus().equals("Upcoming")).mapToLong(Reservation::getTotalCost).sum();
-        long activeRevenue = reservations.values().stream().filter(r -> r.getStatus().equals("Active")).mapToLong(Reservation::getTotalCost).sum();
-        long completedRevenue = reservations.values().stream().filter(r -> r.getStatus().equals("Completed")).mapToLong(Reservation::getTotalCost).sum();
-        long checkedOutRevenue = reservations.values().stream().filter(r -> r.getStatus().equals("Checked-Out")).mapToLong(Reservation::getTotalCost).sum();
-        long cancelledRevenue = reservations.values().stream().filter(r -> r.getStatus().equals("Cancelled")).mapToLong(Reservation::getTotalCost).sum();
+        ReservationStats stats = reservations.getStats();
+        long upcomingCount = stats.getCount("Upcoming");
+        long activeCount = stats.getCount("Active");
+        long completedCount = stats.getCount("Completed");
+        long checkedOutCount = stats.getCount("Checked-Out");
+        long cancelledCount = stats.getCount("Cancelled");
+        
+        long upcomingRevenue = stats.getRevenue("Upcoming");
+        long activeRevenue = stats.getRevenue("Active");
+        long completedRevenue = stats.getRevenue("Completed");
+        long checkedOutRevenue = stats.getRevenue("Checked-Out");
+        long cancelledRevenue = stats.getRevenue("Cancelled");
         
         String report = "<html><body style='font-family:sans-serif; padding:20px;'>"
-                + "<h1 style='color:#0066CC;'>📋 Status Report</h1><hr>"
+                + "<h1 style='color:#0066CC;'>📋 Status Report</h1><hr>" + scopeNote()
                 + "<table style='width:100%; border-collapse:collapse; margin-top:20px;'>"
                 + "<tr style='background:#f5f5f5;'>"
                 + "<th style='padding:10px; text-align:left; border-bottom:2px solid #ddd;'>Status</th>"
@@ -181,6 +245,355 @@ public class ReportsPanel extends JPanel {
                 + "<h3 style='margin:0;'>Total Revenue: " + String.format("%,d", upcomingRevenue + activeRevenue + completedRevenue + checkedOutRevenue + cancelledRevenue) + " LKR</h3>"
                 + "</div>"
                 + "</body></html>";
-        reportArea.setText(report);
+        render(report);
+    }
+    
+    /** Ask for a date range (this month by default) and show occupancy for it. */
+    private void chooseOccupancyRange() {
+        LocalDate today = StatusEngine.today();
+        JTextField from = new JTextField(today.withDayOfMonth(1).toString());
+        JTextField to = new JTextField(today.withDayOfMonth(today.lengthOfMonth()).toString());
+        JComboBox<String> roomType = new JComboBox<>(new String[]{"All", "Single", "Double", "Suite"});
+        
+        JPanel form = new JPanel(new GridLayout(0, 2, 8, 8));
+        form.add(new JLabel("Nights from (yyyy-MM-dd):")); form.add(from);
+        form.add(new JLabel("Nights to (yyyy-MM-dd):")); form.add(to);
+        form.add(new JLabel("Room type:")); form.add(roomType);
+        if(JOptionPane.showConfirmDialog(this, form, "Occupancy", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+        
+        LocalDate fromDate, toDate;
+        try {
+            fromDate = LocalDate.parse(from.getText().trim());
+            toDate = LocalDate.parse(to.getText().trim());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Dates must be in yyyy-MM-dd format.", "Occupancy", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if(toDate.isBefore(fromDate) || toDate.toEpochDay() - fromDate.toEpochDay() > 3660) {
+            JOptionPane.showMessageDialog(this, "Choose a range of up to 10 years, ending on or after its start.",
+                    "Occupancy", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        String type = roomType.getSelectedIndex() == 0 ? null : (String) roomType.getSelectedItem();
+        // Each new range re-reads the archived history; redraws from the change feed reuse it
+        historyCube = null;
+        historyError = null;
+        show(() -> generateOccupancyReport(fromDate, toDate, type));
+    }
+    
+    /**
+     * Occupancy %, ADR and RevPAR per room type for the range, then a row
+     * per night (or per month for ranges longer than two months). In
+     * DATABASE mode a range that starts before the archive cutoff is
+     * counted from the database, archive included, on a worker thread.
+     */
+    private void generateOccupancyReport(LocalDate from, LocalDate to, String roomType) {
+        long start = System.nanoTime();
+        OccupancyCube cube = reservations.getOccupancyCube();
+        boolean fromHistory = useDatabase && from.isBefore(ReservationArchive.hotCutoff());
+        // Without the archive the live cube is used, which does follow the store
+        showingHistory = fromHistory && historyError == null;
+        if(fromHistory && historyError == null) {
+            if(historyCube == null) {
+                loadHistoryCube(from, to);
+                render("<html><body style='font-family:sans-serif; padding:20px;'>"
+                        + "<h1 style='color:#0066CC;'>🛏 Occupancy Report</h1><hr>"
+                        + "<p style='color:#F39C12;'>Reading archived stays from the database…</p></body></html>");
+                return;
+            }
+            cube = historyCube;
+        }
+        String th = "<th style='padding:10px; text-align:left; border-bottom:2px solid #ddd;'>";
+        String td = "<td style='padding:10px; border-bottom:1px solid #eee;'>";
+        
+        StringBuilder report = new StringBuilder("<html><body style='font-family:sans-serif; padding:20px;'>"
+                + "<h1 style='color:#0066CC;'>🛏 Occupancy Report</h1><hr>"
+                + "<p>Nights from <b>" + from + "</b> to <b>" + to + "</b>"
+                + (roomType == null ? "" : ", " + roomType + " rooms") + "</p>"
+                + "<table style='width:100%; border-collapse:collapse; margin-top:20px;'>"
+                + "<tr style='background:#f5f5f5;'>"
+                + th + "Room Type</th>" + th + "Rooms</th>" + th + "Room Nights</th>" + th + "Occupancy</th>"
+                + th + "Revenue (LKR)</th>" + th + "ADR (LKR)</th>" + th + "RevPAR (LKR)</th>"
+                + "</tr>");
+        
+        for(String type : OccupancyCube.ROOM_TYPES) {
+            if(roomType != null && !roomType.equals(type)) continue;
+            appendOccupancyRow(report, td, "<b>" + type + "</b>", RoomInventory.capacityOf(type), cube.range(from, to, type));
+        }
+        if(roomType == null) {
+            int rooms = Constants.SINGLE_ROOMS + Constants.DOUBLE_ROOMS + Constants.SUITE_ROOMS;
+            appendOccupancyRow(report, td, "<b>All Rooms</b>", rooms, cube.range(from, to, null));
+        }
+        report.append("</table>");
+        
+        boolean monthly = to.toEpochDay() - from.toEpochDay() > 62;
+        report.append("<h3 style='margin-top:30px;'>").append(monthly ? "By Month" : "By Night").append("</h3>")
+                .append("<table style='width:100%; border-collapse:collapse;'>")
+                .append("<tr style='background:#f5f5f5;'>")
+                .append(th).append(monthly ? "Month" : "Night").append("</th>")
+                .append(th).append("Arrivals</th>").append(th).append("Room Nights</th>").append(th).append("Occupancy</th>")
+                .append(th).append("Revenue (LKR)</th>").append(th).append("ADR (LKR)</th>").append(th).append("RevPAR (LKR)</th>")
+                .append("</tr>");
+        LocalDate day = from;
+        while(!day.isAfter(to)) {
+            LocalDate end = monthly ? day.withDayOfMonth(day.lengthOfMonth()) : day;
+            if(end.isAfter(to)) end = to;
+            OccupancyCube.Figures f = cube.range(day, end, roomType);
+            String label = monthly ? day.getMonth().toString().substring(0, 3) + " " + day.getYear() : day.toString();
+            report.append("<tr>").append(td).append(label).append("</td>")
+                    .append(td).append(f.arrivals).append("</td>");
+            appendFigures(report, td, f);
+            report.append("</tr>");
+            day = end.plusDays(1);
+        }
+        report.append("</table>");
+        
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        if(fromHistory && historyError != null) {
+            report.append("<p style='color:#E74C3C;'>Archived stays could not be read (").append(historyError)
+                    .append("); only stays checking out on or after ").append(ReservationArchive.hotCutoff())
+                    .append(" are counted.</p>");
+        } else if(fromHistory) {
+            report.append("<p style='color:#666; font-size:11px;'>Includes archived stays, read from the database "
+                    + "when this range was chosen.</p>");
+        }
+        report.append("<p style='color:#666; font-size:11px;'>Cancelled bookings are not counted. Computed in ")
+                .append(ms).append(" ms.</p></body></html>");
+        render(report.toString());
+    }
+    
+    /** Count the range's stays in the database, archive included, then redraw the open report. */
+    private void loadHistoryCube(LocalDate from, LocalDate to) {
+        if(historyWorker != null && !historyWorker.isDone()
+                && from.equals(historyFrom) && to.equals(historyTo)) return;
+        historyFrom = from;
+        historyTo = to;
+        historyWorker = new SwingWorker<OccupancyCube, Void>() {
+            @Override
+            protected OccupancyCube doInBackground() throws Exception {
+                return OccupancyCube.buildFromDatabase(from, to);
+            }
+            
+            @Override
+            protected void done() {
+                // A newer range was chosen while this one was loading
+                if(historyWorker != this) return;
+                try {
+                    historyCube = get();
+                } catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    System.err.println("ERROR: Could not read archived occupancy: " + cause.getMessage());
+                    historyError = String.valueOf(cause.getMessage());
+                }
+                currentReport.run();
+            }
+        };
+        historyWorker.execute();
+    }
+    
+    private static void appendOccupancyRow(StringBuilder report, String td, String label, int rooms, OccupancyCube.Figures f) {
+        report.append("<tr>").append(td).append(label).append("</td>")
+                .append(td).append(rooms).append("</td>");
+        appendFigures(report, td, f);
+        report.append("</tr>");
+    }
+    
+    private static void appendFigures(StringBuilder report, String td, OccupancyCube.Figures f) {
+        report.append(td).append(f.roomNights).append("</td>")
+                .append(td).append(String.format("%.1f%%", f.occupancy())).append("</td>")
+                .append(td).append(String.format("%,d", f.revenue)).append("</td>")
+                .append(td).append(String.format("%,d", f.adr())).append("</td>")
+                .append(td).append(String.format("%,d", f.revPar())).append("</td>");
+    }
+    
+    /**
+     * Show the forecast straight away from what is on the books, then read
+     * the booking history in the background and redraw as each month of it
+     * is counted.
+     */
+    private void startForecast() {
+        show(forecastReport);
+        if(forecastWorker != null && !forecastWorker.isDone()) return;
+        BookingForecast forecast = new BookingForecast(reservations, useDatabase);
+        forecastWorker = new SwingWorker<BookingForecast.PickupCurve, BookingForecast.PickupCurve>() {
+            @Override
+            protected BookingForecast.PickupCurve doInBackground() {
+                return forecast.pickupCurve(this::publish);
+            }
+            
+            @Override
+            protected void process(java.util.List<BookingForecast.PickupCurve> progress) {
+                pickupCurve = progress.get(progress.size() - 1);
+                redrawIfShowingForecast();
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    pickupCurve = get();
+                    System.out.println("✓ Pickup curve built from " + pickupCurve.getBuckets() + " months of bookings");
+                } catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    System.err.println("ERROR: Forecast failed: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Could not read booking history: " + cause.getMessage(),
+                            "Forecast", JOptionPane.ERROR_MESSAGE);
+                }
+                redrawIfShowingForecast();
+            }
+        };
+        forecastWorker.execute();
+    }
+    
+    private void redrawIfShowingForecast() {
+        if(currentReport == forecastReport) currentReport.run();
+    }
+    
+    /**
+     * Work out the 90 nights and lay out the page on a worker thread, then
+     * show it. Redraws asked for meanwhile are folded into one more run.
+     */
+    private void generateForecastReport() {
+        if(forecastRender != null && !forecastRender.isDone()) {
+            forecastRedrawPending = true;
+            return;
+        }
+        BookingForecast.PickupCurve curve = pickupCurve != null ? pickupCurve : new BookingForecast.PickupCurve();
+        forecastRender = new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                return forecastHtml(curve);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    if(currentReport == forecastReport) render(get());
+                } catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    System.err.println("ERROR: Forecast failed: " + cause.getMessage());
+                }
+                if(forecastRedrawPending) {
+                    forecastRedrawPending = false;
+                    redrawIfShowingForecast();
+                }
+            }
+        };
+        forecastRender.execute();
+    }
+    
+    private String forecastHtml(BookingForecast.PickupCurve curve) {
+        java.util.List<BookingForecast.Night> nights = new BookingForecast(reservations, useDatabase).forecast(curve, null);
+        String th = "<th style='padding:8px; text-align:left; border-bottom:2px solid #ddd;'>";
+        String td = "<td style='padding:8px; border-bottom:1px solid #eee;'>";
+        
+        StringBuilder report = new StringBuilder("<html><body style='font-family:sans-serif; padding:20px;'>"
+                + "<h1 style='color:#0066CC;'>🔮 Occupancy Forecast</h1><hr>");
+        if(curve.isComplete() && curve.getBuckets() > 0) {
+            report.append("<p>Next ").append(BookingForecast.HORIZON_DAYS).append(" nights. Pickup from ")
+                    .append(curve.getBuckets()).append(" months of booking history.</p>");
+        } else {
+            report.append("<p style='color:#F39C12;'>Reading booking history… ").append(curve.getBucketsDone())
+                    .append(" of ").append(curve.getBuckets()).append(" months counted; forecast will firm up as it loads.</p>");
+        }
+        
+        report.append("<table style='width:100%; border-collapse:collapse;'><tr style='background:#f5f5f5;'>")
+                .append(th).append("Period</th>").append(th).append("On the Books</th>")
+                .append(th).append("Forecast</th>").append(th).append("Expected Pickup (room nights)</th></tr>");
+        for(int[] period : new int[][]{{0, 30}, {30, 60}, {60, 90}}) {
+            double onBooks = 0, expected = 0, rooms = 0;
+            for(BookingForecast.Night n : nights.subList(period[0], Math.min(period[1], nights.size()))) {
+                onBooks += n.onTheBooks;
+                expected += n.forecast;
+                rooms += n.rooms;
+            }
+            report.append("<tr>").append(td).append("Days ").append(period[0] + 1).append("–").append(period[1]).append("</td>")
+                    .append(td).append(String.format("%.1f%%", rooms == 0 ? 0 : 100 * onBooks / rooms)).append("</td>")
+                    .append(td).append(String.format("%.1f%%", rooms == 0 ? 0 : 100 * expected / rooms)).append("</td>")
+                    .append(td).append(String.format("%,.0f", expected - onBooks)).append("</td></tr>");
+        }
+        report.append("</table>");
+        
+        report.append("<h3 style='margin-top:30px;'>By Night</h3>")
+                .append("<table style='width:100%; border-collapse:collapse;'><tr style='background:#f5f5f5;'>")
+                .append(th).append("Night</th>").append(th).append("Days Out</th>").append(th).append("Rooms Booked</th>")
+                .append(th).append("On the Books</th>").append(th).append("Forecast Rooms</th>").append(th).append("Forecast</th></tr>");
+        for(BookingForecast.Night n : nights) {
+            report.append("<tr>").append(td).append(n.date).append("</td>")
+                    .append(td).append(n.leadDays).append("</td>")
+                    .append(td).append(n.onTheBooks).append(" / ").append(n.rooms).append("</td>")
+                    .append(td).append(String.format("%.1f%%", n.onTheBooksPercent())).append("</td>")
+                    .append(td).append(String.format("%.1f", n.forecast)).append("</td>")
+                    .append(td).append(String.format("%.1f%%", n.forecastPercent())).append("</td></tr>");
+        }
+        report.append("</table><p style='color:#666; font-size:11px;'>Cancelled bookings and bookings with no recorded "
+                + "booking date are not used for pickup.</p></body></html>");
+        return report.toString();
+    }
+    
+    /** Ask what to export, then write it off the event thread. */
+    private void exportData(JButton exportBtn) {
+        JComboBox<String> what = new JComboBox<>(new String[]{"Reservations", "Report figures"});
+        JComboBox<ReservationExporter.Format> format = new JComboBox<>(ReservationExporter.Format.values());
+        JComboBox<String> status = new JComboBox<>(new String[]{"All", "Upcoming", "Active", "Completed", "Checked-Out", "Cancelled"});
+        JTextField from = new JTextField();
+        JTextField to = new JTextField();
+        
+        JPanel form = new JPanel(new GridLayout(0, 2, 8, 8));
+        form.add(new JLabel("Export:")); form.add(what);
+        form.add(new JLabel("Format:")); form.add(format);
+        form.add(new JLabel("Status:")); form.add(status);
+        form.add(new JLabel("Stays from (yyyy-MM-dd):")); form.add(from);
+        form.add(new JLabel("Stays to (yyyy-MM-dd):")); form.add(to);
+        if(JOptionPane.showConfirmDialog(this, form, "Export", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+        
+        LocalDate fromDate, toDate;
+        try {
+            fromDate = from.getText().trim().isEmpty() ? null : LocalDate.parse(from.getText().trim());
+            toDate = to.getText().trim().isEmpty() ? null : LocalDate.parse(to.getText().trim());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Dates must be in yyyy-MM-dd format.", "Export", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        ReservationExporter.Format fmt = (ReservationExporter.Format) format.getSelectedItem();
+        boolean reportOnly = what.getSelectedIndex() == 1;
+        String statusFilter = status.getSelectedIndex() == 0 ? null : (String) status.getSelectedItem();
+        
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File((reportOnly ? "report" : "reservations") + "." + fmt.name().toLowerCase()));
+        if(chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        
+        exportBtn.setEnabled(false);
+        new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+                    if(reportOnly) {
+                        ReservationExporter.exportReport(reservations.getStats(), out, fmt);
+                        return -1L;
+                    }
+                    ReservationExporter exporter = new ReservationExporter(out, fmt, fromDate, toDate, statusFilter);
+                    return useDatabase ? exporter.exportFromDatabase() : exporter.exportFromStore(reservations);
+                }
+            }
+            
+            @Override
+            protected void done() {
+                exportBtn.setEnabled(true);
+                try {
+                    long rows = get();
+                    System.out.println("✓ Exported " + (rows < 0 ? "report" : rows + " reservations") + " to " + file);
+                    JOptionPane.showMessageDialog(ReportsPanel.this,
+                            (rows < 0 ? "Report figures" : String.format("%,d reservations", rows)) + " exported to\n" + file,
+                            "Export", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    System.err.println("ERROR: Export failed: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Export failed: " + cause.getMessage(),
+                            "Export", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
 }
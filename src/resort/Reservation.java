@@ -2,7 +2,6 @@ package resort;
 
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public class Reservation implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -10,6 +9,15 @@ public class Reservation implements Serializable {
     private LocalDate checkIn, checkOut;
     private long totalCost;
     private String manualStatus; // "Checked-Out", "Cancelled" - only set manually
+    private int version; // database row version this copy was read at
+    private LocalDate bookedOn; // date the booking was made; null if not recorded
+    
+    // Auto-detected status cached for one day (see StatusEngine)
+    private transient String autoStatus;
+    private transient volatile long autoStatusDay = Long.MIN_VALUE;
+    
+    // Length of stay, worked out once (0 = not yet)
+    private transient long nights;
 
     public Reservation(String resNo, String name, String address, String contact,
                 String roomType, LocalDate checkIn, LocalDate checkOut) {
@@ -21,13 +29,31 @@ public class Reservation implements Serializable {
         this.checkIn = checkIn;
         this.checkOut = checkOut;
         this.manualStatus = null; // Auto-detect by default
+        this.bookedOn = StatusEngine.today();
         calculateCost();
     }
+    
+    // Restores a stored reservation as-is, without re-pricing it
+    Reservation(String resNo, String name, String address, String contact,
+                String roomType, LocalDate checkIn, LocalDate checkOut,
+                long totalCost, String manualStatus) {
+        this.resNo = resNo;
+        this.name = name;
+        this.address = address;
+        this.contact = contact;
+        this.roomType = roomType;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.totalCost = totalCost;
+        this.manualStatus = manualStatus;
+    }
 
     void calculateCost() {
-        long nights = Math.max(1, ChronoUnit.DAYS.between(checkIn, checkOut));
-        int rate = roomType.equals("Single") ? 8000 : roomType.equals("Double") ? 12000 : 20000;
-        this.totalCost = nights * rate;
+        this.totalCost = RateEngine.quote(roomType, checkIn, checkOut);
+    }
+    
+    void setTotalCost(long totalCost) {
+        this.totalCost = totalCost;
     }
     
     // Auto-detect status based on dates
@@ -37,12 +63,19 @@ public class Reservation implements Serializable {
             return manualStatus;
         }
         
-        // Auto-detect based on dates
-        LocalDate today = LocalDate.now();
-        
-        if(today.isBefore(checkIn)) {
+        // Auto-detect based on dates, recomputed at most once per day
+        long today = StatusEngine.currentEpochDay();
+        if(autoStatusDay != today) {
+            autoStatus = computeAutoStatus(today);
+            autoStatusDay = today;
+        }
+        return autoStatus;
+    }
+    
+    private String computeAutoStatus(long today) {
+        if(today < checkIn.toEpochDay()) {
             return "Upcoming";
-        } else if(today.isAfter(checkOut) || today.isEqual(checkOut)) {
+        } else if(today >= checkOut.toEpochDay()) {
             return "Completed";
         } else {
             return "Active";
@@ -56,6 +89,27 @@ public class Reservation implements Serializable {
     public boolean isManualStatus() {
         return manualStatus != null;
     }
+    
+    String getManualStatus() {
+        return manualStatus;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    void setVersion(int version) {
+        this.version = version;
+    }
+    
+    /** The day the booking was made, or null for bookings from before it was recorded. */
+    public LocalDate getBookedOn() {
+        return bookedOn;
+    }
+    
+    void setBookedOn(LocalDate bookedOn) {
+        this.bookedOn = bookedOn;
+    }
 
     public String getResNo() { return resNo; }
     public String getName() { return name; }
@@ -67,6 +121,9 @@ public class Reservation implements Serializable {
     public long getTotalCost() { return totalCost; }
     
     public long getNights() {
-        return Math.max(1, ChronoUnit.DAYS.between(checkIn, checkOut));
+        if(nights == 0) {
+            nights = Math.max(1, checkOut.toEpochDay() - checkIn.toEpochDay());
+        }
+        return nights;
     }
 }
@@ -0,0 +1,256 @@
+package resort;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hot/cold split of the reservations table.
+ *
+ * Stays that checked out more than ARCHIVE_AFTER_DAYS ago are moved, with
+ * their audit_log rows, into reservations_archive and audit_log_archive,
+ * which are partitioned by year. Each batch is one transaction that copies
+ * the rows, deletes them and leaves tombstones, so other terminals drop
+ * them on their next delta sync. Terminals only load the hot rows, so
+ * memory stays bounded by the working set instead of the resort's history.
+ *
+ * Archived stays are read on demand: by reservation number for invoice
+ * reprints, and a page at a time (ordered by check-out date) for reports.
+ */
+public class ReservationArchive {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    private static final String COLUMNS = "id, reservation_no, guest_name, address, contact, room_type, "
+            + "check_in_date, check_out_date, total_cost, manual_status, version, created_at, updated_at";
+    private static final String IN_BATCH = "id BETWEEN ? AND ? AND check_out_date < ?";
+    private static final String IN_BATCH_JOINED = "r.id BETWEEN ? AND ? AND r.check_out_date < ?";
+
+    private static Boolean available = null;
+    private static Thread background = null;
+
+    private ReservationArchive() {
+    }
+
+    /** Stays checking out before this day are cold. */
+    public static LocalDate cutoff(int afterDays) {
+        return StatusEngine.today().minusDays(afterDays);
+    }
+
+    public static LocalDate hotCutoff() {
+        return cutoff(Constants.ARCHIVE_AFTER_DAYS);
+    }
+
+    /** True once the archive tables exist (see DATABASE_SETUP_GUIDE.md). Checked once per run. */
+    public static synchronized boolean isAvailable() {
+        if (available == null) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (conn == null) return false;
+                DatabaseMetaData meta = conn.getMetaData();
+                try (ResultSet rs = meta.getTables(conn.getCatalog(), null, "reservations_archive", null)) {
+                    available = rs.next();
+                }
+            } catch (SQLException e) {
+                return false;
+            }
+            if (!available) System.err.println("WARNING: reservations_archive table not found, archival is off");
+        }
+        return available;
+    }
+
+    // ── Moving ───────────────────────────────────────────────────────────
+
+    /**
+     * Move every stay that checked out more than afterDays ago into the
+     * archive, batchSize reservations per transaction. Returns the number
+     * moved. Safe to run from several terminals at once.
+     */
+    public static int archive(int afterDays, int batchSize) throws SQLException {
+        if (!isAvailable()) return 0;
+        java.sql.Date cutoff = java.sql.Date.valueOf(cutoff(afterDays));
+        long start = System.currentTimeMillis();
+        int moved = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            conn.setAutoCommit(false);
+            try {
+                while (true) {
+                    int n = archiveBatch(conn, cutoff, batchSize);
+                    if (n == 0) break;
+                    moved += n;
+                    System.out.println("✓ Archived " + moved + " reservations");
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (moved > 0) {
+            DatabaseHandler.logAction(null, "ARCHIVE", "system",
+                    moved + " reservations checked out before " + cutoff + " moved to the archive");
+            System.out.println("✓ Archive run finished: " + moved + " reservations in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        return moved;
+    }
+
+    /** Move the next batch in one transaction; returns its size, 0 when nothing is left. */
+    private static int archiveBatch(Connection conn, java.sql.Date cutoff, int batchSize) throws SQLException {
+        long low = Long.MAX_VALUE, high = Long.MIN_VALUE;
+        int count = 0;
+        try (PreparedStatement pick = conn.prepareStatement(
+                "SELECT id FROM reservations WHERE check_out_date < ? ORDER BY id LIMIT ? FOR UPDATE")) {
+            pick.setDate(1, cutoff);
+            pick.setInt(2, batchSize);
+            try (ResultSet rs = pick.executeQuery()) {
+                while (rs.next()) {
+                    low = Math.min(low, rs.getLong(1));
+                    high = Math.max(high, rs.getLong(1));
+                    count++;
+                }
+            }
+        }
+        if (count == 0) {
+            conn.rollback();
+            return 0;
+        }
+
+        // Every cold row between the lowest and highest picked id is in the batch
+        String[] steps = {
+            "INSERT INTO reservations_archive (" + COLUMNS + ") SELECT " + COLUMNS
+                    + " FROM reservations WHERE " + IN_BATCH,
+            "INSERT INTO audit_log_archive (id, reservation_no, action, performed_by, action_details, performed_at) "
+                    + "SELECT a.id, a.reservation_no, a.action, a.performed_by, a.action_details, "
+                    + "COALESCE(a.performed_at, CURRENT_TIMESTAMP) "
+                    + "FROM audit_log a JOIN reservations r ON a.reservation_no = r.reservation_no WHERE " + IN_BATCH_JOINED,
+            "DELETE a FROM audit_log a JOIN reservations r ON a.reservation_no = r.reservation_no WHERE "
+                    + IN_BATCH_JOINED,
+            // Other terminals drop the rows on their next delta sync
+            "INSERT INTO reservation_tombstones (reservation_no) SELECT reservation_no FROM reservations WHERE "
+                    + IN_BATCH + " ON DUPLICATE KEY UPDATE deleted_at = CURRENT_TIMESTAMP",
+            "DELETE FROM reservations WHERE " + IN_BATCH
+        };
+        try {
+            for (String sql : steps) {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, low);
+                    pstmt.setLong(2, high);
+                    pstmt.setDate(3, cutoff);
+                    pstmt.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        return count;
+    }
+
+    /**
+     * Run one archive pass on a background thread, once per process. Used at
+     * startup in DATABASE mode; failures are logged and retried next start.
+     */
+    public static synchronized void startBackground() {
+        if (background != null) return;
+        background = new Thread(() -> {
+            try {
+                archive(Constants.ARCHIVE_AFTER_DAYS, DEFAULT_BATCH_SIZE);
+            } catch (SQLException e) {
+                System.err.println("WARNING: Archive run stopped: " + e.getMessage());
+            }
+        }, "reservation-archiver");
+        background.setDaemon(true);
+        background.setPriority(Thread.MIN_PRIORITY);
+        background.start();
+    }
+
+    // ── Reading ──────────────────────────────────────────────────────────
+
+    /**
+     * A reservation that is not in the hot set, for reprinting its invoice:
+     * the latest archived stay with the number, else a cold row that has not
+     * been archived yet. Null if there is none.
+     */
+    public static Reservation find(String resNo) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            if (isAvailable()) {
+                Reservation r = findIn(conn, "SELECT * FROM reservations_archive WHERE reservation_no = ? "
+                        + "ORDER BY check_out_date DESC LIMIT 1", resNo);
+                if (r != null) return r;
+            }
+            return findIn(conn, "SELECT * FROM reservations WHERE reservation_no = ?", resNo);
+        }
+    }
+
+    private static Reservation findIn(Connection conn, String sql, String resNo) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, resNo);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? DatabaseHandler.readReservation(rs) : null;
+            }
+        }
+    }
+
+    /** One page of archived stays; pass nextCursor back to get the following page. */
+    public static final class Page {
+        public final List<Reservation> rows;
+        public final String nextCursor;
+
+        Page(List<Reservation> rows, String nextCursor) {
+            this.rows = rows;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    /**
+     * Archived stays checking out from "from" through "to", ordered by
+     * check-out date. cursor is null for the first page. Pages are found by
+     * key rather than OFFSET, and the date range only touches the matching
+     * yearly partitions, so late pages cost the same as the first.
+     */
+    public static Page page(LocalDate from, LocalDate to, String cursor, int limit) throws SQLException {
+        if (!isAvailable()) return new Page(new ArrayList<>(), null);
+        LocalDate afterDate = from.minusDays(1);
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null) {
+            int colon = cursor.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Bad cursor: " + cursor);
+            afterDate = LocalDate.parse(cursor.substring(0, colon));
+            afterId = Long.parseLong(cursor.substring(colon + 1));
+        }
+        String sql = "SELECT * FROM reservations_archive WHERE check_out_date BETWEEN ? AND ? "
+                + "AND (check_out_date > ? OR (check_out_date = ? AND id > ?)) "
+                + "ORDER BY check_out_date, id LIMIT ?";
+        List<Reservation> rows = new ArrayList<>();
+        String next = null;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setDate(1, java.sql.Date.valueOf(from));
+                pstmt.setDate(2, java.sql.Date.valueOf(to));
+                pstmt.setDate(3, java.sql.Date.valueOf(afterDate));
+                pstmt.setDate(4, java.sql.Date.valueOf(afterDate));
+                pstmt.setLong(5, afterId);
+                pstmt.setInt(6, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    long lastId = 0;
+                    while (rs.next()) {
+                        rows.add(DatabaseHandler.readReservation(rs));
+                        lastId = rs.getLong("id");
+                    }
+                    if (rows.size() == limit) {
+                        next = rows.get(rows.size() - 1).getCheckOut() + ":" + lastId;
+                    }
+                }
+            }
+        }
+        return new Page(rows, next);
+    }
+}
@@ -0,0 +1,271 @@
+package resort;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams reservations to CSV or JSON for accounting extracts.
+ *
+ * Rows are written as they are read and never collected. In database mode
+ * they come from a forward-only streaming cursor, and filters run in SQL.
+ * Each row is written field by field into the (buffered) output, so
+ * exporting ten million rows uses no more heap than exporting ten.
+ *
+ * Filters: a stay overlaps [from, to] when it checks in on or before "to"
+ * and checks out after "from"; either bound may be null. The status filter
+ * matches the status shown on screen, or null for all.
+ */
+public class ReservationExporter {
+
+    public enum Format { CSV, JSON }
+
+    private static final String[] HEADER = {"reservation_no", "guest_name", "address", "contact",
+            "room_type", "check_in", "check_out", "nights", "total_cost", "status"};
+
+    private final Writer out;
+    private final Format format;
+    private final LocalDate from, to;
+    private final String status;
+    private long rows = 0;
+
+    public ReservationExporter(Writer out, Format format, LocalDate from, LocalDate to, String status) {
+        this.out = out;
+        this.format = format;
+        this.from = from;
+        this.to = to;
+        this.status = status;
+    }
+
+    /**
+     * Export from the database. Archived stays are streamed first when the
+     * range reaches back past the archive cutoff. Returns the number of rows
+     * written.
+     */
+    public long exportFromDatabase() throws SQLException, IOException {
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (to != null) {
+            where.append(" AND check_in_date <= ?");
+            params.add(java.sql.Date.valueOf(to));
+        }
+        if (from != null) {
+            where.append(" AND check_out_date > ?");
+            params.add(java.sql.Date.valueOf(from));
+        }
+        if (status != null) {
+            // Same rules as Reservation.getStatus(), so the filter runs in MySQL
+            java.sql.Date today = java.sql.Date.valueOf(StatusEngine.today());
+            switch (status) {
+                case "Upcoming":
+                    where.append(" AND manual_status IS NULL AND check_in_date > ?");
+                    params.add(today);
+                    break;
+                case "Active":
+                    where.append(" AND manual_status IS NULL AND check_in_date <= ? AND check_out_date > ?");
+                    params.add(today);
+                    params.add(today);
+                    break;
+                case "Completed":
+                    where.append(" AND manual_status IS NULL AND check_out_date <= ?");
+                    params.add(today);
+                    break;
+                default:
+                    where.append(" AND manual_status = ?");
+                    params.add(status);
+            }
+        }
+        where.append(" ORDER BY id");
+
+        boolean withArchive = (from == null || from.isBefore(ReservationArchive.hotCutoff()))
+                && ReservationArchive.isAvailable();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            begin();
+            if (withArchive) streamTable(conn, "reservations_archive", where.toString(), params);
+            streamTable(conn, "reservations", where.toString(), params);
+            end();
+        }
+        return rows;
+    }
+
+    private void streamTable(Connection conn, String table, String where, List<Object> params)
+            throws SQLException, IOException {
+        String sql = "SELECT reservation_no, guest_name, address, contact, room_type, "
+                + "check_in_date, check_out_date, total_cost, manual_status FROM " + table + where;
+        long today = StatusEngine.currentEpochDay();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate checkIn = rs.getObject(6, LocalDate.class);
+                    LocalDate checkOut = rs.getObject(7, LocalDate.class);
+                    String manual = rs.getString(9);
+                    writeRow(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), checkIn, checkOut, rs.getLong(8),
+                            manual != null ? manual : autoStatus(today, checkIn.toEpochDay(), checkOut.toEpochDay()));
+                }
+            }
+        }
+    }
+
+    /** Export from an in-memory store (FILE mode). Returns the number of rows written. */
+    public long exportFromStore(ReservationStore store) throws IOException {
+        List<Reservation> candidates = status != null ? store.byStatus(status) : store.values();
+        begin();
+        for (Reservation r : candidates) {
+            if (to != null && r.getCheckIn().isAfter(to)) continue;
+            if (from != null && !r.getCheckOut().isAfter(from)) continue;
+            writeRow(r.getResNo(), r.getName(), r.getAddress(), r.getContact(), r.getRoomType(),
+                    r.getCheckIn(), r.getCheckOut(), r.getTotalCost(), r.getStatus());
+        }
+        end();
+        return rows;
+    }
+
+    /** Write the report figures (by status and by room type) as rows. */
+    public static void exportReport(ReservationStats stats, Writer out, Format format) throws IOException {
+        String[] statuses = {"Upcoming", "Active", "Completed", "Checked-Out", "Cancelled"};
+        String[] roomTypes = {"Single", "Double", "Suite"};
+        if (format == Format.CSV) {
+            out.write("group,key,bookings,revenue\n");
+        } else {
+            out.write("[\n");
+        }
+        boolean first = true;
+        for (String s : statuses) {
+            writeReportRow(out, format, first, "status", s, stats.getCount(s), stats.getRevenue(s));
+            first = false;
+        }
+        for (String t : roomTypes) {
+            writeReportRow(out, format, false, "room_type", t, stats.getRoomTypeCount(t), stats.getRoomTypeRevenue(t));
+        }
+        writeReportRow(out, format, false, "total", "all", stats.getTotalCount(), stats.getTotalRevenue());
+        if (format == Format.JSON) out.write("\n]\n");
+        out.flush();
+    }
+
+    private static void writeReportRow(Writer out, Format format, boolean first, String group, String key,
+                                       long bookings, long revenue) throws IOException {
+        if (format == Format.CSV) {
+            out.write(group + "," + key + "," + bookings + "," + revenue + "\n");
+        } else {
+            out.write((first ? "" : ",\n") + "{\"group\":" + Json.quote(group) + ",\"key\":" + Json.quote(key)
+                    + ",\"bookings\":" + bookings + ",\"revenue\":" + revenue + "}");
+        }
+    }
+
+    private static String autoStatus(long today, long checkIn, long checkOut) {
+        if (today < checkIn) return "Upcoming";
+        if (today >= checkOut) return "Completed";
+        return "Active";
+    }
+
+    // ── Row writing ──────────────────────────────────────────────────────
+
+    private void begin() throws IOException {
+        if (format == Format.CSV) {
+            for (int i = 0; i < HEADER.length; i++) {
+                if (i > 0) out.write(',');
+                out.write(HEADER[i]);
+            }
+            out.write('\n');
+        } else {
+            out.write("[\n");
+        }
+    }
+
+    private void end() throws IOException {
+        if (format == Format.JSON) out.write(rows == 0 ? "]\n" : "\n]\n");
+        out.flush();
+    }
+
+    private void writeRow(String resNo, String name, String address, String contact, String roomType,
+                          LocalDate checkIn, LocalDate checkOut, long totalCost, String rowStatus) throws IOException {
+        long nights = checkOut.toEpochDay() - checkIn.toEpochDay();
+        if (format == Format.CSV) {
+            csvField(out, resNo); out.write(',');
+            csvField(out, name); out.write(',');
+            csvField(out, address); out.write(',');
+            csvField(out, contact); out.write(',');
+            out.write(roomType); out.write(',');
+            DateTimeFormatter.ISO_LOCAL_DATE.formatTo(checkIn, out); out.write(',');
+            DateTimeFormatter.ISO_LOCAL_DATE.formatTo(checkOut, out); out.write(',');
+            out.write(Long.toString(nights)); out.write(',');
+            out.write(Long.toString(totalCost)); out.write(',');
+            out.write(rowStatus);
+            out.write('\n');
+        } else {
+            out.write(rows == 0 ? "{" : ",\n{");
+            out.write("\"reservation_no\":"); jsonString(resNo);
+            out.write(",\"guest_name\":"); jsonString(name);
+            out.write(",\"address\":"); jsonString(address);
+            out.write(",\"contact\":"); jsonString(contact);
+            out.write(",\"room_type\":"); jsonString(roomType);
+            out.write(",\"check_in\":\""); DateTimeFormatter.ISO_LOCAL_DATE.formatTo(checkIn, out);
+            out.write("\",\"check_out\":\""); DateTimeFormatter.ISO_LOCAL_DATE.formatTo(checkOut, out);
+            out.write("\",\"nights\":"); out.write(Long.toString(nights));
+            out.write(",\"total_cost\":"); out.write(Long.toString(totalCost));
+            out.write(",\"status\":"); jsonString(rowStatus);
+            out.write('}');
+        }
+        rows++;
+    }
+
+    /** A CSV field, quoted only if it contains a comma, quote or line break. Also used by FolioJob. */
+    static void csvField(Appendable out, String s) throws IOException {
+        if (s == null) return;
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(s);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private void jsonString(String s) throws IOException {
+        if (s == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write("\\u00");
+                        out.write(Character.forDigit(c >> 4, 16));
+                        out.write(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
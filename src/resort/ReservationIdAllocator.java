@@ -0,0 +1,87 @@
+package resort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out reservation numbers (R001, R002, ...) from memory.
+ *
+ * In database mode each terminal leases a block of BLOCK_SIZE numbers
+ * from the reservation_sequence table and issues them one by one, so a
+ * new booking needs no uniqueness query; the table is only touched once
+ * per block. Numbers left over when the program exits are skipped.
+ * In FILE mode numbers simply continue after the highest one loaded.
+ *
+ * Clerks can still type their own ID; the insert's duplicate-key check
+ * catches a clash.
+ */
+public class ReservationIdAllocator {
+
+    private static final String PREFIX = "R";
+    private static final int BLOCK_SIZE = 50;
+
+    private final ReservationStore reservations;
+    private final boolean useDatabase;
+    private long next = 0, end = 0;
+    private final List<long[]> leased = new ArrayList<>();
+
+    public ReservationIdAllocator(ReservationStore reservations, boolean useDatabase) {
+        this.reservations = reservations;
+        this.useDatabase = useDatabase;
+    }
+
+    /** The next free reservation number, or null if no block could be leased. */
+    public synchronized String nextId() {
+        while (true) {
+            if (next >= end && !lease()) return null;
+            String id = format(next++);
+            // Skip numbers someone already typed in by hand
+            if (!reservations.containsKey(id)) return id;
+        }
+    }
+
+    /** Whether the ID was issued by this allocator, as opposed to typed in. */
+    public synchronized boolean isIssued(String id) {
+        long n = parse(id);
+        for (long[] block : leased) {
+            if (n >= block[0] && n < Math.min(block[1], next)) return true;
+        }
+        return false;
+    }
+
+    private boolean lease() {
+        long[] block;
+        if (useDatabase) {
+            block = DatabaseHandler.leaseReservationNumbers(BLOCK_SIZE);
+            if (block == null) return false;
+        } else {
+            long start = Math.max(end, highestLocalNumber() + 1);
+            block = new long[]{start, start + BLOCK_SIZE};
+        }
+        next = block[0];
+        end = block[1];
+        leased.add(block);
+        return true;
+    }
+
+    private long highestLocalNumber() {
+        long max = 0;
+        for (Reservation r : reservations.values()) {
+            max = Math.max(max, parse(r.getResNo()));
+        }
+        return max;
+    }
+
+    static String format(long n) {
+        return String.format("%s%03d", PREFIX, n);
+    }
+
+    /** Number part of an ID in the allocator's format, or -1. */
+    static long parse(String id) {
+        if (id == null || !id.startsWith(PREFIX) || id.length() == PREFIX.length() || id.length() > 18) return -1;
+        for (int i = PREFIX.length(); i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) return -1;
+        }
+        return Long.parseLong(id.substring(PREFIX.length()));
+    }
+}
@@ -0,0 +1,403 @@
+package resort;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of reservations from a CSV export of another system.
+ *
+ * The file is streamed in chunks. While one chunk is being written, the
+ * next one is already being validated in parallel. In database mode
+ * each chunk is one transaction: a JDBC batch insert, one summary
+ * audit_log entry and the import checkpoint. If the import stops
+ * half-way, running it again carries on after the last committed chunk.
+ * In FILE mode rows go into the store (and so the journal), and the
+ * checkpoint is kept in a file next to the CSV.
+ *
+ * Expected header (columns in any order, total_cost and manual_status
+ * optional; missing costs are priced by RateEngine):
+ *   reservation_no,guest_name,address,contact,room_type,check_in,check_out,total_cost,manual_status
+ *
+ * Rows that fail validation or clash with an existing reservation number
+ * are written to &lt;file&gt;.rejects with the reason, and the import goes on.
+ */
+public class ReservationImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO reservations (reservation_no, guest_name, address, contact, " +
+            "room_type, check_in_date, check_out_date, total_cost, manual_status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String CHECKPOINT_SQL =
+            "INSERT INTO import_checkpoints (import_key, rows_done) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE rows_done = VALUES(rows_done)";
+
+    private final Path file;
+    private final int chunkSize;
+    private final boolean useDatabase;
+    private final ReservationStore reservations;
+    private final String importKey;
+
+    private long rowsRead = 0, rowsImported = 0, rowsRejected = 0;
+
+    /** reservations is only used in FILE mode and may be null in database mode. */
+    public ReservationImporter(Path file, int chunkSize, boolean useDatabase, ReservationStore reservations) throws IOException {
+        this.file = file;
+        this.chunkSize = chunkSize;
+        this.useDatabase = useDatabase;
+        this.reservations = reservations;
+        // Identifies this file for resuming; a different file of the same name starts over
+        this.importKey = file.getFileName() + ":" + Files.size(file);
+    }
+
+    /** One parsed CSV row: either a reservation or the reason it was rejected. */
+    private static final class Row {
+        final long line;
+        final Reservation reservation;
+        final String error;
+
+        Row(long line, Reservation reservation, String error) {
+            this.line = line;
+            this.reservation = reservation;
+            this.error = error;
+        }
+    }
+
+    /** Run the import. Returns the number of rows imported in this run. */
+    public long run() throws IOException, SQLException {
+        long resumeAfter = readCheckpoint();
+        if (resumeAfter > 0) {
+            System.out.println("✓ Resuming " + file.getFileName() + " after row " + resumeAfter);
+        }
+        long start = System.currentTimeMillis();
+
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+             PrintWriter rejects = new PrintWriter(Files.newBufferedWriter(rejectsFile(),
+                     StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            List<String> header = csv.next();
+            if (header == null) throw new IOException("Empty file: " + file);
+            int[] columns = mapColumns(header);
+
+            // Skip rows already committed by an earlier run
+            while (rowsRead < resumeAfter && csv.next() != null) rowsRead++;
+
+            CompletableFuture<List<Row>> nextChunk = validateAsync(readChunk(csv), columns);
+            while (true) {
+                List<Row> chunk = nextChunk.join();
+                if (chunk.isEmpty()) break;
+                // Validate the following chunk while this one is written
+                nextChunk = validateAsync(readChunk(csv), columns);
+                write(chunk, rejects);
+                rejects.flush();
+
+                double seconds = Math.max(0.001, (System.currentTimeMillis() - start) / 1000.0);
+                System.out.println(String.format("✓ %,d rows read, %,d imported, %,d rejected (%,.0f rows/sec)",
+                        rowsRead, rowsImported, rowsRejected, (rowsRead - resumeAfter) / seconds));
+            }
+        }
+        System.out.println("✓ Import of " + file.getFileName() + " finished: " + rowsImported + " imported, "
+                + rowsRejected + " rejected" + (rowsRejected > 0 ? " (see " + rejectsFile().getFileName() + ")" : ""));
+        return rowsImported;
+    }
+
+    private List<String[]> readChunk(CsvReader csv) throws IOException {
+        List<String[]> chunk = new ArrayList<>(chunkSize);
+        List<String> fields;
+        while (chunk.size() < chunkSize && (fields = csv.next()) != null) {
+            rowsRead++;
+            // Line number kept as the first element for reject messages
+            String[] row = new String[fields.size() + 1];
+            row[0] = Long.toString(rowsRead);
+            for (int i = 0; i < fields.size(); i++) row[i + 1] = fields.get(i);
+            chunk.add(row);
+        }
+        return chunk;
+    }
+
+    private static CompletableFuture<List<Row>> validateAsync(List<String[]> chunk, int[] columns) {
+        return CompletableFuture.supplyAsync(() ->
+                chunk.parallelStream().map(row -> validate(row, columns)).collect(Collectors.toList()));
+    }
+
+    // ── Validation ───────────────────────────────────────────────────────
+
+    private static final String[] COLUMNS = {"reservation_no", "guest_name", "address", "contact",
+            "room_type", "check_in", "check_out", "total_cost", "manual_status"};
+    private static final int REQUIRED_COLUMNS = 7;
+
+    private static int[] mapColumns(List<String> header) throws IOException {
+        int[] columns = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            columns[c] = -1;
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().equalsIgnoreCase(COLUMNS[c])) columns[c] = i + 1;
+            }
+            if (c < REQUIRED_COLUMNS && columns[c] < 0) {
+                throw new IOException("Missing column '" + COLUMNS[c] + "' in CSV header");
+            }
+        }
+        return columns;
+    }
+
+    private static Row validate(String[] row, int[] columns) {
+        long line = Long.parseLong(row[0]);
+        String resNo = field(row, columns[0]);
+        String name = field(row, columns[1]);
+        String address = field(row, columns[2]);
+        String contact = field(row, columns[3]);
+        String roomType = field(row, columns[4]);
+        String cost = field(row, columns[7]);
+        String status = field(row, columns[8]);
+
+        if (resNo.isEmpty()) return new Row(line, null, "reservation_no is empty");
+        if (resNo.length() > 50) return new Row(line, null, "reservation_no longer than 50 characters");
+        if (name.isEmpty()) return new Row(line, null, "guest_name is empty");
+        if (name.length() > 100) return new Row(line, null, "guest_name longer than 100 characters");
+        if (address.length() > 255) return new Row(line, null, "address longer than 255 characters");
+        if (contact.isEmpty()) return new Row(line, null, "contact is empty");
+        if (contact.length() > 50) return new Row(line, null, "contact longer than 50 characters");
+        if (!roomType.equals("Single") && !roomType.equals("Double") && !roomType.equals("Suite")) {
+            return new Row(line, null, "unknown room_type '" + roomType + "'");
+        }
+        if (!status.isEmpty() && !status.equals("Checked-Out") && !status.equals("Cancelled")) {
+            return new Row(line, null, "unknown manual_status '" + status + "'");
+        }
+        LocalDate checkIn, checkOut;
+        try {
+            checkIn = LocalDate.parse(field(row, columns[5]));
+            checkOut = LocalDate.parse(field(row, columns[6]));
+        } catch (DateTimeParseException e) {
+            return new Row(line, null, "dates must be yyyy-MM-dd");
+        }
+        if (!checkOut.isAfter(checkIn)) return new Row(line, null, "check_out is not after check_in");
+        long totalCost;
+        try {
+            totalCost = cost.isEmpty() ? RateEngine.quote(roomType, checkIn, checkOut) : Long.parseLong(cost);
+        } catch (NumberFormatException e) {
+            return new Row(line, null, "total_cost is not a whole number");
+        }
+        if (totalCost < 0) return new Row(line, null, "total_cost is negative");
+        return new Row(line, new Reservation(resNo, name, address, contact, roomType, checkIn, checkOut,
+                totalCost, status.isEmpty() ? null : status), null);
+    }
+
+    private static String field(String[] row, int column) {
+        return column < 0 || column >= row.length || row[column] == null ? "" : row[column].trim();
+    }
+
+    // ── Writing ──────────────────────────────────────────────────────────
+
+    private void write(List<Row> chunk, PrintWriter rejects) throws IOException, SQLException {
+        List<Reservation> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error != null) reject(rejects, row.line, row.error);
+            else valid.add(row.reservation);
+        }
+        long firstLine = chunk.get(0).line;
+        long lastLine = chunk.get(chunk.size() - 1).line;
+        if (useDatabase) {
+            writeToDatabase(chunk, valid, firstLine, lastLine, rejects);
+        } else {
+            synchronized (reservations) {
+                for (Row row : chunk) {
+                    if (row.reservation == null) continue;
+                    if (reservations.containsKey(row.reservation.getResNo())) {
+                        reject(rejects, row.line, "reservation_no " + row.reservation.getResNo() + " already exists");
+                    } else {
+                        reservations.put(row.reservation);
+                        rowsImported++;
+                    }
+                }
+            }
+            writeCheckpointFile(lastLine);
+        }
+    }
+
+    private void writeToDatabase(List<Row> chunk, List<Reservation> valid, long firstLine, long lastLine,
+                                 PrintWriter rejects) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            conn.setAutoCommit(false);
+            try {
+                int inserted;
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    for (Reservation r : valid) {
+                        bind(pstmt, r);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    inserted = valid.size();
+                } catch (BatchUpdateException e) {
+                    // Usually a reservation number that already exists: redo the
+                    // chunk row by row so only the clashing rows are rejected
+                    conn.rollback();
+                    inserted = insertRowByRow(conn, chunk, rejects);
+                }
+                finishChunk(conn, inserted, firstLine, lastLine);
+                conn.commit();
+                rowsImported += inserted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int insertRowByRow(Connection conn, List<Row> chunk, PrintWriter rejects) throws SQLException {
+        int inserted = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Row row : chunk) {
+                if (row.reservation == null) continue;
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    bind(pstmt, row.reservation);
+                    pstmt.executeUpdate();
+                    inserted++;
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    conn.rollback(savepoint);
+                    reject(rejects, row.line, "reservation_no " + row.reservation.getResNo() + " already exists");
+                } catch (SQLException e) {
+                    // Anything else the row alone trips over (data too long, bad
+                    // value) is rejected too, so a re-run does not stop on it again
+                    conn.rollback(savepoint);
+                    reject(rejects, row.line, "rejected by the database: " + e.getMessage());
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /** One audit entry for the whole chunk, and the checkpoint, in the chunk's transaction. */
+    private void finishChunk(Connection conn, int inserted, long firstLine, long lastLine) throws SQLException {
+        try (PreparedStatement audit = conn.prepareStatement(
+                "INSERT INTO audit_log (reservation_no, action, performed_by, action_details) VALUES (NULL, ?, ?, ?)")) {
+            audit.setString(1, "BULK_IMPORT");
+            audit.setString(2, "admin");
+            audit.setString(3, inserted + " reservations imported from " + file.getFileName()
+                    + " rows " + firstLine + "-" + lastLine);
+            audit.executeUpdate();
+        }
+        try (PreparedStatement checkpoint = conn.prepareStatement(CHECKPOINT_SQL)) {
+            checkpoint.setString(1, importKey);
+            checkpoint.setLong(2, lastLine);
+            checkpoint.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Reservation r) throws SQLException {
+        pstmt.setString(1, r.getResNo());
+        pstmt.setString(2, r.getName());
+        pstmt.setString(3, r.getAddress());
+        pstmt.setString(4, r.getContact());
+        pstmt.setString(5, r.getRoomType());
+        pstmt.setDate(6, java.sql.Date.valueOf(r.getCheckIn()));
+        pstmt.setDate(7, java.sql.Date.valueOf(r.getCheckOut()));
+        pstmt.setLong(8, r.getTotalCost());
+        pstmt.setString(9, r.getManualStatus());
+    }
+
+    private void reject(PrintWriter rejects, long line, String reason) {
+        rowsRejected++;
+        rejects.println("row " + line + ": " + reason);
+    }
+
+    // ── Checkpoints ──────────────────────────────────────────────────────
+
+    private long readCheckpoint() throws IOException, SQLException {
+        if (!useDatabase) {
+            Path cp = checkpointFile();
+            if (!Files.exists(cp)) return 0;
+            List<String> lines = Files.readAllLines(cp, StandardCharsets.UTF_8);
+            return lines.size() == 2 && lines.get(0).equals(importKey) ? Long.parseLong(lines.get(1)) : 0;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("No database connection");
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT rows_done FROM import_checkpoints WHERE import_key = ?")) {
+                pstmt.setString(1, importKey);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+        }
+    }
+
+    private void writeCheckpointFile(long rowsDone) throws IOException {
+        Path temp = checkpointFile().resolveSibling(checkpointFile().getFileName() + ".tmp");
+        Files.write(temp, List.of(importKey, Long.toString(rowsDone)), StandardCharsets.UTF_8);
+        Files.move(temp, checkpointFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path checkpointFile() {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+
+    private Path rejectsFile() {
+        return file.resolveSibling(file.getFileName() + ".rejects");
+    }
+
+    // ── CSV ──────────────────────────────────────────────────────────────
+
+    /** Streaming RFC 4180 reader: quoted fields may hold commas, "" and line breaks. */
+    static final class CsvReader implements Closeable {
+        private final Reader in;
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        /** The next record, or null at end of input. */
+        List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false, any = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        int d = in.read();
+                        if (d == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (d != -1) in.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) return null;
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
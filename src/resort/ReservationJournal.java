@@ -0,0 +1,466 @@
+package resort;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * FILE-mode storage: a memory-mapped ReservationSnapshot plus an
+ * append-only log of the changes made since it was written.
+ *
+ * Every change is one checksummed record appended to the end of the log,
+ * so saving a reservation costs one small write instead of re-serializing
+ * the whole collection. Writes are forced to disk in batches every
+ * FSYNC_INTERVAL_MS. On startup the snapshot is loaded and the log is
+ * replayed on top of it; a torn or corrupt tail left by a crash is
+ * detected by its checksum and cut off. Records carry full reservation
+ * state, so replaying one that the snapshot already contains is harmless.
+ *
+ * Once the log holds about as many records as there are live reservations,
+ * a new snapshot is written in the background and the log starts over.
+ *
+ * Only one process may have the files open at a time: open() takes an
+ * exclusive lock on a ".lock" file next to the log and holds it until
+ * close(). The log itself is replaced on compaction, so it can't carry the lock.
+ *
+ * Log layout: MAGIC, then records of
+ *   [int length][int crc32 of type+payload][byte type][payload]
+ * A put's payload ends with the booking date as an epoch-day int.
+ */
+public class ReservationJournal implements ReservationStore.Listener {
+
+    private static final int MAGIC = 0x4F524A31; // "ORJ1"
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final int MAX_RECORD = 1 << 20;
+    private static final long FSYNC_INTERVAL_MS = 100;
+    private static final int MIN_COMPACT_RECORDS = 10000;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    /** Thrown by open() when another process already has the journal open. */
+    public static class LockedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public LockedException(String message) {
+            super(message);
+        }
+    }
+
+    private final Path path;
+    private final Path snapshotPath;
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    private boolean dirty = false;
+    private long records = 0;
+    private int liveCount = 0;
+
+    // Set while a background compaction is copying the live set; records
+    // appended meanwhile are also kept here and added to the new file
+    private List<byte[]> compactionTail = null;
+
+    private ReservationStore store;
+    private final ScheduledExecutorService background;
+
+    private ReservationJournal(Path path, Path snapshotPath) {
+        this.path = path;
+        this.snapshotPath = snapshotPath;
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-journal");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open (or create) the snapshot and journal and load them into the
+     * store. The files are read before the store is locked, so the store
+     * is only held while the decoded reservations go in. The store is then
+     * followed, so every later change is appended automatically.
+     *
+     * @throws LockedException if another process has the journal open
+     */
+    public static ReservationJournal open(String fileName, String snapshotFileName,
+                                         ReservationStore store) throws IOException {
+        ReservationJournal journal = new ReservationJournal(Paths.get(fileName), Paths.get(snapshotFileName));
+        long start = System.currentTimeMillis();
+        journal.lock();
+        List<Reservation> base;
+        List<Object> log;
+        try {
+            base = journal.loadSnapshot();
+            log = journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.unlock();
+            throw e;
+        }
+        synchronized (store) {
+            // Anything added while the files were being read wins over them
+            List<Reservation> early = store.values();
+            for (Reservation r : base) {
+                store.put(r);
+            }
+            for (Object op : log) {
+                if (op instanceof Reservation) store.put((Reservation) op);
+                else store.remove((String) op);
+            }
+            if (base.isEmpty() && log.isEmpty()) {
+                journal.importLegacyFile(store);
+            }
+            for (Reservation r : early) {
+                store.put(r);
+                journal.append(encodePut(r));
+            }
+            journal.store = store;
+            journal.liveCount = store.size();
+            store.addListener(journal);
+            System.out.println("✓ Loaded " + base.size() + " snapshot rows + " + log.size()
+                    + " journal records (" + store.size() + " reservations) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        journal.background.scheduleWithFixedDelay(journal::flush,
+                FSYNC_INTERVAL_MS, FSYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    private void lock() throws IOException {
+        Path lockPath = path.resolveSibling(path.getFileName() + ".lock");
+        lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // already held by this process
+        }
+        if (lock == null) {
+            lockChannel.close();
+            background.shutdown();
+            throw new LockedException(path + " is in use by another Ocean Resort process"
+                    + " (desktop, server or command-line tool); stop it and try again");
+        }
+    }
+
+    /** Close the log, then the lock file; closing it releases the lock. */
+    private void unlock() {
+        background.shutdown();
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ── Recovery ─────────────────────────────────────────────────────────
+
+    private List<Reservation> loadSnapshot() throws IOException {
+        List<Reservation> result = new ArrayList<>();
+        ReservationSnapshot snapshot = ReservationSnapshot.open(snapshotPath);
+        if (snapshot == null) return result;
+        for (int i = 0; i < snapshot.size(); i++) {
+            result.add(snapshot.get(i));
+        }
+        return result;
+    }
+
+    /** Read the log, cutting off a damaged tail. Returns puts and deleted IDs in order. */
+    private List<Object> recover() throws IOException {
+        List<Object> ops = new ArrayList<>();
+        boolean existed = Files.exists(path);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!existed || channel.size() == 0) {
+            writeHeader(channel);
+            channel.force(true);
+            return ops;
+        }
+
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a reservation journal");
+            }
+            good = 4;
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 1 || length > MAX_RECORD) break;
+                int checksum;
+                byte[] body = new byte[length];
+                try {
+                    checksum = in.readInt();
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) break;
+                ops.add(decodeRecord(body));
+                records++;
+                good += 8 + length;
+            }
+        }
+
+        if (good < channel.size()) {
+            System.err.println("WARNING: Discarding " + (channel.size() - good)
+                    + " bytes of incomplete journal records in " + path);
+            channel.truncate(good);
+            channel.force(true);
+        }
+        channel.position(good);
+        return ops;
+    }
+
+    private static Object decodeRecord(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        if (type == TYPE_PUT) return decode(in);
+        if (type == TYPE_DELETE) return in.readUTF();
+        throw new IOException("Unknown journal record type " + type);
+    }
+
+    /** One-time migration from the old Java-serialized reservations.dat. */
+    @SuppressWarnings("unchecked")
+    private void importLegacyFile(ReservationStore store) {
+        File legacy = new File(Constants.FILE_NAME);
+        if (!legacy.exists()) return;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(legacy)))) {
+            java.util.Map<String, Reservation> old = (java.util.Map<String, Reservation>) in.readObject();
+            for (Reservation r : old.values()) {
+                store.put(r);
+                append(encodePut(r));
+            }
+            flush();
+            System.out.println("✓ Imported " + old.size() + " reservations from " + Constants.FILE_NAME);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("WARNING: Could not import " + Constants.FILE_NAME);
+            e.printStackTrace();
+        }
+    }
+
+    // ── Encoding ─────────────────────────────────────────────────────────
+
+    static void encode(Reservation r, DataOutputStream out) throws IOException {
+        out.writeUTF(r.getResNo());
+        writeNullable(out, r.getName());
+        writeNullable(out, r.getAddress());
+        writeNullable(out, r.getContact());
+        out.writeUTF(r.getRoomType());
+        out.writeInt((int) r.getCheckIn().toEpochDay());
+        out.writeInt((int) r.getCheckOut().toEpochDay());
+        out.writeLong(r.getTotalCost());
+        writeNullable(out, r.isManualStatus() ? r.getStatus() : null);
+        out.writeInt(r.getBookedOn() == null ? NO_DATE : (int) r.getBookedOn().toEpochDay());
+    }
+
+    static Reservation decode(DataInputStream in) throws IOException {
+        String resNo = in.readUTF();
+        String name = readNullable(in);
+        String address = readNullable(in);
+        String contact = readNullable(in);
+        String roomType = in.readUTF();
+        LocalDate checkIn = LocalDate.ofEpochDay(in.readInt());
+        LocalDate checkOut = LocalDate.ofEpochDay(in.readInt());
+        long totalCost = in.readLong();
+        String manualStatus = readNullable(in);
+        Reservation r = new Reservation(resNo, name, address, contact, roomType, checkIn, checkOut, totalCost, manualStatus);
+        int bookedOn = in.readInt();
+        if (bookedOn != NO_DATE) r.setBookedOn(LocalDate.ofEpochDay(bookedOn));
+        return r;
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static byte[] encodePut(Reservation r) {
+        return record(TYPE_PUT, out -> encode(r, out));
+    }
+
+    private static byte[] encodeDelete(String resNo) {
+        return record(TYPE_DELETE, out -> out.writeUTF(resNo));
+    }
+
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] record(byte type, PayloadWriter payload) {
+        try {
+            ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(128);
+            DataOutputStream body = new DataOutputStream(bodyBytes);
+            body.writeByte(type);
+            payload.write(body);
+            byte[] b = bodyBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(b);
+            ByteBuffer buf = ByteBuffer.allocate(8 + b.length);
+            buf.putInt(b.length).putInt((int) crc.getValue()).put(b);
+            return buf.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4).putInt(MAGIC);
+        header.flip();
+        while (header.hasRemaining()) ch.write(header);
+    }
+
+    // ── Appending ────────────────────────────────────────────────────────
+
+    @Override
+    public void reservationChanged(Reservation r, ReservationStore.Snapshot before, ReservationStore.Snapshot after) {
+        if (after == null) {
+            liveCount--;
+            append(encodeDelete(r.getResNo()));
+        } else if (before != null && onlyAutoStatusChanged(r, before, after)) {
+            // Midnight status roll-over: nothing stored has changed
+            return;
+        } else {
+            if (before == null) liveCount++;
+            append(encodePut(r));
+        }
+        maybeCompact();
+    }
+
+    private static boolean onlyAutoStatusChanged(Reservation r, ReservationStore.Snapshot before,
+                                                 ReservationStore.Snapshot after) {
+        return !r.isManualStatus()
+                && before.checkIn.equals(after.checkIn) && before.checkOut.equals(after.checkOut)
+                && before.totalCost == after.totalCost && before.roomType.equals(after.roomType)
+                && before.guestKey.equals(after.guestKey) && !before.status.equals(after.status);
+    }
+
+    private synchronized void append(byte[] record) {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(record);
+            while (buf.hasRemaining()) channel.write(buf);
+            dirty = true;
+            records++;
+            if (compactionTail != null) compactionTail.add(record);
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to write reservation journal");
+            e.printStackTrace();
+        }
+    }
+
+    /** Force batched writes to disk. */
+    public synchronized void flush() {
+        if (!dirty) return;
+        try {
+            channel.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("ERROR: Failed to sync reservation journal");
+            e.printStackTrace();
+        }
+    }
+
+    // ── Compaction ───────────────────────────────────────────────────────
+
+    private void maybeCompact() {
+        synchronized (this) {
+            if (compactionTail != null) return;
+            if (records < Math.max(MIN_COMPACT_RECORDS, liveCount)) return;
+            compactionTail = new ArrayList<>();
+        }
+        background.execute(this::compact);
+    }
+
+    /**
+     * Write a new snapshot and start the log over. The live set is copied
+     * while the store is locked; the snapshot is written without holding
+     * any lock, then the log is replaced by just the records appended in
+     * the meantime. A crash between the two steps leaves the old log in
+     * place, which replays cleanly on top of the new snapshot.
+     */
+    private void compact() {
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            List<Reservation> live;
+            synchronized (store) {
+                live = store.values();
+                synchronized (this) {
+                    compactionTail.clear();
+                }
+            }
+
+            ReservationSnapshot.write(snapshotPath, live);
+
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(out);
+                synchronized (this) {
+                    for (byte[] record : compactionTail) {
+                        ByteBuffer buf = ByteBuffer.wrap(record);
+                        while (buf.hasRemaining()) out.write(buf);
+                    }
+                    out.force(true);
+                    channel.force(true);
+                    channel.close();
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    channel.position(channel.size());
+                    records = compactionTail.size();
+                    dirty = false;
+                    compactionTail = null;
+                }
+            }
+            System.out.println("✓ Snapshot written with " + live.size() + " reservations");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR: Journal compaction failed");
+            e.printStackTrace();
+            synchronized (this) {
+                compactionTail = null;
+                if (!channel.isOpen()) {
+                    try {
+                        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                        channel.position(channel.size());
+                    } catch (IOException reopen) {
+                        reopen.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Flush pending writes, close the file and let other processes open it. */
+    public void close() {
+        background.shutdown();
+        try {
+            background.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            flush();
+            unlock();
+        }
+        System.out.println("✓ Reservation journal closed");
+    }
+}
@@ -11,15 +11,15 @@ import resort.CustomComponents.*;
 
 public class ReservationPanel extends JPanel {
     
-    private HashMap<String, Reservation> reservations;
+    private AsyncRepository repository;
     private Runnable saveCallback;
     private java.util.function.BiConsumer<String, Boolean> statusCallback;
     private OceanResortSystem mainSystem;
     
-    public ReservationPanel(HashMap<String, Reservation> reservations, 
+    public ReservationPanel(AsyncRepository repository, 
                            Runnable saveCallback,
                            java.util.function.BiConsumer<String, Boolean> statusCallback) {
-        this.reservations = reservations;
+        this.repository = repository;
         this.saveCallback = saveCallback;
         this.statusCallback = statusCallback;
         setupUI();
@@ -70,6 +70,9 @@ public class ReservationPanel extends JPanel {
         costPreview.setFont(new Font("SansSerif", Font.ITALIC, 12));
         costPreview.setForeground(Color.GRAY);
 
+        // Offer the next number; clerks may still type their own
+        offerNextId(resNo);
+
         form.add(new JLabel("Reservation ID:")); form.add(resNo);
         form.add(new JLabel("Guest Name:")); form.add(name);
         form.add(new JLabel("Address:")); form.add(addr);
@@ -87,6 +90,7 @@ public class ReservationPanel extends JPanel {
         
         clearBtn.addActionListener(e -> {
             resNo.setText("");
+            offerNextId(resNo);
             name.setText("");
             addr.setText("");
             cont.setText("");
@@ -124,25 +128,6 @@ public class ReservationPanel extends JPanel {
                 return;
             }
             
-            // Check for duplicate ID
-            boolean exists = false;
-            try {
-                // Try database first
-                exists = DatabaseHandler.reservationExists(resNo.getText().trim());
-            } catch (Exception ex) {
-                // Fallback to local check
-                exists = reservations.containsKey(resNo.getText().trim());
-            }
-            
-            if(exists) {
-                statusCallback.accept("Reservation ID already exists! Please use a unique ID.", true);
-                resNo.requestFocus();
-                resNo.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(Constants.DANGER_COLOR, 2), 
-                    BorderFactory.createEmptyBorder(5, 10, 5, 10)));
-                return;
-            }
-            
             LocalDate in = ((Date)checkIn.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
             LocalDate out = ((Date)checkOut.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
             
@@ -152,7 +137,11 @@ public class ReservationPanel extends JPanel {
                 return;
             }
             
-            Reservation r = new Reservation(
+            // The service claims the room and saves in the background; the
+            // database's unique key catches a clashing ID, so there is no
+            // separate lookup first
+            saveBtn.setEnabled(false);
+            repository.create(
                 resNo.getText().trim(), 
                 name.getText().trim(), 
                 addr.getText().trim(), 
@@ -160,31 +149,29 @@ public class ReservationPanel extends JPanel {
                 room.getSelectedItem().toString(), 
                 in, 
                 out
-            );
-            
-            // Try to save to database first
-            boolean saved = false;
-            try {
-                saved = DatabaseHandler.saveReservation(r);
-                if(saved) {
-                    reservations.put(r.getResNo(), r);
+            ).whenComplete((r, failure) -> {
+                saveBtn.setEnabled(true);
+                if(failure == null) {
                     saveCallback.run();
-                    statusCallback.accept("✓ Reservation Saved to Database! ID: " + r.getResNo() + " | Guest: " + r.getName() + " | Cost: " + String.format("%,d", r.getTotalCost()) + " LKR", false);
+                    statusCallback.accept("✓ Reservation Saved" + (repository.isUsingDatabase() ? " to Database" : "") + "! ID: " + r.getResNo() + " | Guest: " + r.getName() + " | Cost: " + String.format("%,d", r.getTotalCost()) + " LKR", false);
+                    // Clear form
+                    clearBtn.doClick();
+                    return;
                 }
-            } catch (Exception ex) {
-                // Database not available, just add to memory
-                reservations.put(r.getResNo(), r);
-                saveCallback.run();
-                statusCallback.accept("✓ Reservation Saved! ID: " + r.getResNo() + " | Guest: " + r.getName() + " | Cost: " + String.format("%,d", r.getTotalCost()) + " LKR", false);
-                saved = true;
-            }
-            
-            if(saved) {
-                // Clear form
-                clearBtn.doClick();
-            } else {
-                statusCallback.accept("Failed to save reservation!", true);
-            }
+                Throwable ex = AsyncRepository.cause(failure);
+                if(!(ex instanceof IllegalArgumentException) && !(ex instanceof IllegalStateException)) {
+                    statusCallback.accept("Failed to save reservation!", true);
+                    ex.printStackTrace();
+                    return;
+                }
+                statusCallback.accept(ex.getMessage(), true);
+                if(ex instanceof DatabaseHandler.DuplicateReservationException) {
+                    resNo.requestFocus();
+                    resNo.setBorder(BorderFactory.createCompoundBorder(
+                        BorderFactory.createLineBorder(Constants.DANGER_COLOR, 2), 
+                        BorderFactory.createEmptyBorder(5, 10, 5, 10)));
+                }
+            });
         });
 
         buttonPanel.add(clearBtn);
@@ -197,4 +184,11 @@ public class ReservationPanel extends JPanel {
         add(form, BorderLayout.CENTER); 
         add(buttonPanel, BorderLayout.SOUTH);
     }
+    
+    /** Fill in the next reservation number once it arrives, unless the clerk typed one. */
+    private void offerNextId(JTextField field) {
+        repository.nextReservationId().thenAccept(id -> {
+            if(id != null && field.getText().trim().isEmpty()) field.setText(id);
+        });
+    }
 }
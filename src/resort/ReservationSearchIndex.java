@@ -0,0 +1,132 @@
+package resort;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Search index over reservation ID, guest name, contact and room type for
+ * the All Bookings search box.
+ *
+ * Queries of three or more characters are answered from a trigram index
+ * (substring match); shorter queries match the start of any word. The index
+ * is kept up to date from ReservationStore changes, so typing never has to
+ * scan the whole table.
+ */
+public class ReservationSearchIndex implements ReservationStore.Listener {
+
+    private static final int GRAM = 3;
+
+    // Lower-cased searchable text per reservation
+    private final HashMap<String, String> docs = new HashMap<>();
+    private final HashMap<String, Set<String>> grams = new HashMap<>();
+    private final TreeMap<String, Set<String>> words = new TreeMap<>();
+
+    /** Index everything in the store and follow its changes from now on. */
+    public void attach(ReservationStore store) {
+        synchronized (store) {
+            synchronized (this) {
+                for (Reservation r : store.values()) {
+                    add(r.getResNo(), textOf(r));
+                }
+            }
+            store.addListener(this);
+        }
+    }
+
+    @Override
+    public synchronized void reservationChanged(Reservation r, ReservationStore.Snapshot before,
+                                                ReservationStore.Snapshot after) {
+        String resNo = r.getResNo();
+        if (after == null) {
+            remove(resNo);
+            return;
+        }
+        String text = textOf(r);
+        if (text.equals(docs.get(resNo))) return;
+        remove(resNo);
+        add(resNo, text);
+    }
+
+    private static String textOf(Reservation r) {
+        return (r.getResNo() + "\n" + r.getName() + "\n" + r.getContact() + "\n" + r.getRoomType()).toLowerCase();
+    }
+
+    private void add(String resNo, String text) {
+        docs.put(resNo, text);
+        for (String gram : gramsOf(text)) {
+            grams.computeIfAbsent(gram, k -> new HashSet<>()).add(resNo);
+        }
+        for (String word : wordsOf(text)) {
+            words.computeIfAbsent(word, k -> new HashSet<>()).add(resNo);
+        }
+    }
+
+    private void remove(String resNo) {
+        String text = docs.remove(resNo);
+        if (text == null) return;
+        for (String gram : gramsOf(text)) {
+            Set<String> ids = grams.get(gram);
+            if (ids != null && ids.remove(resNo) && ids.isEmpty()) grams.remove(gram);
+        }
+        for (String word : wordsOf(text)) {
+            Set<String> ids = words.get(word);
+            if (ids != null && ids.remove(resNo) && ids.isEmpty()) words.remove(word);
+        }
+    }
+
+    private static Set<String> gramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM);
+            if (gram.indexOf('\n') < 0) result.add(gram);
+        }
+        return result;
+    }
+
+    private static Set<String> wordsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (String word : text.split("\\s+")) {
+            if (!word.isEmpty()) result.add(word);
+        }
+        return result;
+    }
+
+    /**
+     * Reservation numbers matching the query. Checks for interruption so a
+     * superseded search can be cancelled.
+     */
+    public synchronized Set<String> search(String query) {
+        String q = query.trim().toLowerCase();
+        Set<String> result = new HashSet<>();
+        if (q.isEmpty()) return result;
+
+        if (q.length() < GRAM) {
+            for (Set<String> ids : words.subMap(q, true, q + Character.MAX_VALUE, false).values()) {
+                checkCancelled();
+                result.addAll(ids);
+            }
+            return result;
+        }
+
+        // Start from the rarest trigram, then confirm the full substring
+        Set<String> candidates = null;
+        for (String gram : gramsOf(q)) {
+            Set<String> ids = grams.get(gram);
+            if (ids == null) return result;
+            if (candidates == null || ids.size() < candidates.size()) candidates = ids;
+        }
+        if (candidates == null) return result;
+        int checked = 0;
+        for (String resNo : candidates) {
+            if ((++checked & 1023) == 0) checkCancelled();
+            if (docs.get(resNo).contains(q)) result.add(resNo);
+        }
+        return result;
+    }
+
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Search superseded");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package resort;
+
+import java.time.LocalDate;
+
+/**
+ * Booking operations shared by the desktop UI and the server API:
+ * validation, the status rules for check-out and cancellation, and
+ * writing the result to the store and the database.
+ *
+ * Problems are reported as IllegalArgumentException (bad input),
+ * IllegalStateException (not allowed in the current state or not saved,
+ * with DatabaseHandler.DuplicateReservationException for a number already
+ * taken) and NotFoundException.
+ */
+public class ReservationService {
+
+    public static class NotFoundException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    // Attempts with a fresh number when an issued one turns out to be taken
+    private static final int MAX_ID_ATTEMPTS = 3;
+
+    private final ReservationStore reservations;
+    private final boolean useDatabase;
+    private final ReservationIdAllocator ids;
+
+    public ReservationService(ReservationStore reservations, boolean useDatabase) {
+        this.reservations = reservations;
+        this.useDatabase = useDatabase;
+        this.ids = new ReservationIdAllocator(reservations, useDatabase);
+    }
+
+    public boolean isUsingDatabase() {
+        return useDatabase;
+    }
+
+    /** A fresh reservation number to offer for a new booking, or null if none could be leased. */
+    public String nextReservationId() {
+        return ids.nextId();
+    }
+
+    public ReservationStore getStore() {
+        return reservations;
+    }
+
+    public Reservation find(String resNo) {
+        Reservation r = reservations.get(resNo);
+        if (r == null) throw new NotFoundException("Reservation not found: " + resNo);
+        return r;
+    }
+
+    /**
+     * Validate, claim a room and save a new booking. A blank reservation
+     * number gets the next issued one. If an issued number turns out to be
+     * taken (typed in by hand elsewhere) the next one is tried; a clash on
+     * a hand-typed number is reported.
+     */
+    public Reservation create(String resNo, String name, String address, String contact,
+                              String roomType, LocalDate checkIn, LocalDate checkOut) {
+        if (isBlank(name)) throw new IllegalArgumentException("Guest Name is required!");
+        if (isBlank(contact)) throw new IllegalArgumentException("Contact Number is required!");
+        if (isBlank(roomType)) throw new IllegalArgumentException("Room Type is required!");
+        if (checkIn == null || checkOut == null) throw new IllegalArgumentException("Check-in and check-out dates are required!");
+        if (!checkOut.isAfter(checkIn)) throw new IllegalArgumentException("Check-out date must be after check-in date!");
+        resNo = isBlank(resNo) ? ids.nextId() : resNo.trim();
+        if (resNo != null && reservations.containsKey(resNo) && ids.isIssued(resNo)) {
+            // Offered before the number was taken (e.g. while still loading)
+            resNo = ids.nextId();
+        }
+        if (resNo == null) throw new IllegalStateException("Could not assign a reservation ID!");
+        if (reservations.containsKey(resNo)) {
+            throw new DatabaseHandler.DuplicateReservationException();
+        }
+
+        RoomInventory.Hold hold = reservations.getInventory().tryHold(roomType, checkIn, checkOut);
+        if (hold == null) {
+            throw new IllegalStateException("No " + roomType + " rooms free for every night from "
+                    + checkIn + " to " + checkOut + "!");
+        }
+        try {
+            for (int attempt = 1; ; attempt++) {
+                Reservation r = new Reservation(resNo, name.trim(), address == null ? "" : address.trim(),
+                        contact.trim(), roomType, checkIn, checkOut);
+                boolean saved;
+                try {
+                    saved = !useDatabase || DatabaseHandler.saveReservation(r);
+                } catch (DatabaseHandler.DuplicateReservationException duplicate) {
+                    if (!ids.isIssued(resNo) || attempt == MAX_ID_ATTEMPTS) throw duplicate;
+                    String next = ids.nextId();
+                    if (next == null) throw duplicate;
+                    resNo = next;
+                    continue;
+                }
+                if (!saved) throw new IllegalStateException("Failed to save reservation!");
+                synchronized (reservations) {
+                    // Without a database unique key, a racing save with the same ID is caught here
+                    if (!useDatabase && reservations.containsKey(resNo)) {
+                        throw new DatabaseHandler.DuplicateReservationException();
+                    }
+                    reservations.put(r);
+                }
+                return r;
+            }
+        } finally {
+            reservations.getInventory().release(hold);
+        }
+    }
+
+    public Reservation checkOut(String resNo) {
+        Reservation r = find(resNo);
+        String previous;
+        synchronized (reservations) {
+            String status = r.getStatus();
+            if (status.equals("Checked-Out")) throw new IllegalStateException("Already checked out");
+            if (status.equals("Cancelled") || status.equals("Upcoming")) {
+                throw new IllegalStateException("Cannot check out this reservation");
+            }
+            previous = r.getManualStatus();
+            r.setStatusManual("Checked-Out");
+            reservations.update(r);
+        }
+        save(r, previous);
+        return r;
+    }
+
+    public Reservation cancel(String resNo) {
+        Reservation r = find(resNo);
+        String previous;
+        synchronized (reservations) {
+            String status = r.getStatus();
+            if (status.equals("Cancelled") || status.equals("Checked-Out") || status.equals("Completed")) {
+                throw new IllegalStateException("Cannot cancel this reservation");
+            }
+            previous = r.getManualStatus();
+            r.setStatusManual("Cancelled");
+            reservations.update(r);
+        }
+        save(r, previous);
+        return r;
+    }
+
+    /** Set a manual status, re-index the reservation and save it. */
+    public void changeStatus(Reservation r, String status) {
+        String previous;
+        synchronized (reservations) {
+            previous = r.getManualStatus();
+            r.setStatusManual(status);
+            reservations.update(r);
+        }
+        save(r, previous);
+    }
+
+    // The status check and change happen under the store lock; the
+    // database write happens after it, so it doesn't block readers. The
+    // write is version-checked, and if another desk changed the status
+    // first the local change is undone.
+    private void save(Reservation r, String previous) {
+        if (!useDatabase) return;
+        DatabaseHandler.UpdateResult result = DatabaseHandler.updateManualStatus(r, previous);
+        if (result == DatabaseHandler.UpdateResult.UPDATED) return;
+        synchronized (reservations) {
+            r.setStatusManual(previous);
+            reservations.update(r);
+        }
+        if (result == DatabaseHandler.UpdateResult.CONFLICT) {
+            throw new IllegalStateException("Reservation " + r.getResNo()
+                    + " was changed at another desk. It will refresh shortly; please check it and try again.");
+        }
+        throw new IllegalStateException("Failed to update reservation!");
+    }
+
+    public void delete(String resNo) {
+        find(resNo);
+        if (useDatabase && !DatabaseHandler.deleteReservation(resNo)) {
+            throw new IllegalStateException("Failed to delete reservation");
+        }
+        reservations.remove(resNo);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+}
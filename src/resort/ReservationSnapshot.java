@@ -0,0 +1,223 @@
+package resort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Fixed-layout snapshot of all reservations, read through a memory map.
+ *
+ * Fields are stored column by column: check-in and check-out as epoch-day
+ * ints, costs as longs, room type and manual status as indexes into a small
+ * dictionary of interned strings, and the remaining text as offsets into a
+ * string heap. Opening a snapshot only maps the file; pages are read by the
+ * OS as rows are decoded.
+ *
+ * Layout (big-endian):
+ *   header   MAGIC, VERSION, count, dictCount, then the offset of each section
+ *   dict     dictCount × [short length][UTF-8]
+ *   checkIn  count × int        checkOut  count × int
+ *   cost     count × long
+ *   roomType count × short      status    count × short (-1 = auto)
+ *   text     count × 4 ints (resNo, name, address, contact; -1 = null)
+ *   bookedOn count × int        (epoch day; MIN_VALUE = not recorded)
+ *   heap     [int length][UTF-8] entries
+ */
+public class ReservationSnapshot {
+
+    private static final int MAGIC = 0x4F525331; // "ORS1"
+    private static final int VERSION = 1;
+    private static final int TEXT_FIELDS = 4;
+    private static final int HEADER_SIZE = 4 * 4 + 9 * 8;
+
+    private final MappedByteBuffer buf;
+    private final int count;
+    private final String[] dict;
+    private final long checkInAt, checkOutAt, costAt, roomTypeAt, statusAt, textAt, bookedOnAt, heapAt;
+
+    private ReservationSnapshot(MappedByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a reservation snapshot");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buf.getInt(4));
+        }
+        count = buf.getInt(8);
+        dict = new String[buf.getInt(12)];
+        long dictAt = buf.getLong(16);
+        checkInAt = buf.getLong(24);
+        checkOutAt = buf.getLong(32);
+        costAt = buf.getLong(40);
+        roomTypeAt = buf.getLong(48);
+        statusAt = buf.getLong(56);
+        textAt = buf.getLong(64);
+        bookedOnAt = buf.getLong(72);
+        heapAt = buf.getLong(80);
+        if (heapAt > buf.capacity()) {
+            throw new IOException("Truncated reservation snapshot");
+        }
+
+        int pos = (int) dictAt;
+        for (int i = 0; i < dict.length; i++) {
+            int len = buf.getShort(pos) & 0xFFFF;
+            dict[i] = decode(pos + 2, len).intern();
+            pos += 2 + len;
+        }
+    }
+
+    /** Map a snapshot file, or return null if there is none yet. */
+    public static ReservationSnapshot open(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new ReservationSnapshot(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long checkInDay(int i) {
+        return buf.getInt((int) checkInAt + i * 4);
+    }
+
+    public long checkOutDay(int i) {
+        return buf.getInt((int) checkOutAt + i * 4);
+    }
+
+    public long totalCost(int i) {
+        return buf.getLong((int) costAt + i * 8);
+    }
+
+    public String roomType(int i) {
+        return dict[buf.getShort((int) roomTypeAt + i * 2)];
+    }
+
+    /** Epoch day the booking was made, or Long.MIN_VALUE if not recorded. */
+    public long bookedOnDay(int i) {
+        int day = buf.getInt((int) bookedOnAt + i * 4);
+        return day == ReservationJournal.NO_DATE ? Long.MIN_VALUE : day;
+    }
+
+    public String resNo(int i) {
+        return text(i, 0);
+    }
+
+    /** Decode row i into a Reservation. */
+    public Reservation get(int i) {
+        short status = buf.getShort((int) statusAt + i * 2);
+        Reservation r = new Reservation(text(i, 0), text(i, 1), text(i, 2), text(i, 3), roomType(i),
+                LocalDate.ofEpochDay(checkInDay(i)), LocalDate.ofEpochDay(checkOutDay(i)),
+                totalCost(i), status < 0 ? null : dict[status]);
+        long bookedOn = bookedOnDay(i);
+        if (bookedOn != Long.MIN_VALUE) r.setBookedOn(LocalDate.ofEpochDay(bookedOn));
+        return r;
+    }
+
+    private String text(int i, int field) {
+        int offset = buf.getInt((int) textAt + (i * TEXT_FIELDS + field) * 4);
+        if (offset < 0) return null;
+        int at = (int) heapAt + offset;
+        return decode(at + 4, buf.getInt(at));
+    }
+
+    private String decode(int at, int len) {
+        byte[] bytes = new byte[len];
+        ByteBuffer view = buf.duplicate();
+        view.position(at);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a snapshot of the given reservations. The file is written next
+     * to the target and renamed over it, so readers never see a partial
+     * snapshot.
+     */
+    public static void write(Path path, List<Reservation> reservations) throws IOException {
+        int n = reservations.size();
+        HashMap<String, Short> dictIndex = new HashMap<>();
+        ByteArrayOutputStream dictBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream heap = new ByteArrayOutputStream(n * 48);
+
+        ByteBuffer checkIn = ByteBuffer.allocate(n * 4);
+        ByteBuffer checkOut = ByteBuffer.allocate(n * 4);
+        ByteBuffer cost = ByteBuffer.allocate(n * 8);
+        ByteBuffer roomType = ByteBuffer.allocate(n * 2);
+        ByteBuffer status = ByteBuffer.allocate(n * 2);
+        ByteBuffer text = ByteBuffer.allocate(n * TEXT_FIELDS * 4);
+        ByteBuffer bookedOn = ByteBuffer.allocate(n * 4);
+
+        for (Reservation r : reservations) {
+            checkIn.putInt((int) r.getCheckIn().toEpochDay());
+            checkOut.putInt((int) r.getCheckOut().toEpochDay());
+            cost.putLong(r.getTotalCost());
+            roomType.putShort(intern(r.getRoomType(), dictIndex, dictBytes));
+            status.putShort(r.isManualStatus() ? intern(r.getStatus(), dictIndex, dictBytes) : -1);
+            text.putInt(addToHeap(r.getResNo(), heap));
+            text.putInt(addToHeap(r.getName(), heap));
+            text.putInt(addToHeap(r.getAddress(), heap));
+            text.putInt(addToHeap(r.getContact(), heap));
+            bookedOn.putInt(r.getBookedOn() == null ? ReservationJournal.NO_DATE : (int) r.getBookedOn().toEpochDay());
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long at = HEADER_SIZE;
+        header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(dictIndex.size());
+        header.putLong(at);
+        at += dictBytes.size();
+        for (ByteBuffer column : new ByteBuffer[]{checkIn, checkOut, cost, roomType, status, text, bookedOn}) {
+            header.putLong(at);
+            at += column.capacity();
+        }
+        header.putLong(at);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ByteBuffer section : new ByteBuffer[]{header, ByteBuffer.wrap(dictBytes.toByteArray()),
+                    checkIn, checkOut, cost, roomType, status, text, bookedOn, ByteBuffer.wrap(heap.toByteArray())}) {
+                section.rewind();
+                while (section.hasRemaining()) out.write(section);
+            }
+            out.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static short intern(String s, HashMap<String, Short> index, ByteArrayOutputStream dictBytes) {
+        Short id = index.get(s);
+        if (id != null) return id;
+        if (index.size() == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct room types and statuses");
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        dictBytes.write(bytes.length >>> 8);
+        dictBytes.write(bytes.length);
+        dictBytes.write(bytes, 0, bytes.length);
+        id = (short) index.size();
+        index.put(s, id);
+        return id;
+    }
+
+    private static int addToHeap(String s, ByteArrayOutputStream heap) {
+        if (s == null) return -1;
+        int offset = heap.size();
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        heap.write(bytes.length >>> 24);
+        heap.write(bytes.length >>> 16);
+        heap.write(bytes.length >>> 8);
+        heap.write(bytes.length);
+        heap.write(bytes, 0, bytes.length);
+        return offset;
+    }
+}
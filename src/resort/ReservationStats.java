@@ -0,0 +1,67 @@
+package resort;
+
+import java.util.HashMap;
+
+/**
+ * Per-status and per-room-type booking counts and revenue, kept up to date
+ * by the ReservationStore on every insert, change and removal so reports
+ * and the dashboard read them in constant time.
+ */
+public class ReservationStats implements ReservationStore.Listener {
+
+    // Each value is {count, revenue}
+    private final HashMap<String, long[]> byStatus = new HashMap<>();
+    private final HashMap<String, long[]> byRoomType = new HashMap<>();
+    private long totalCount = 0;
+    private long totalRevenue = 0;
+
+    @Override
+    public synchronized void reservationChanged(Reservation r, ReservationStore.Snapshot before,
+                                                ReservationStore.Snapshot after) {
+        if (before != null) {
+            apply(before, -1);
+        }
+        if (after != null) {
+            apply(after, 1);
+        }
+    }
+
+    private void apply(ReservationStore.Snapshot s, int sign) {
+        long[] status = byStatus.computeIfAbsent(s.status, k -> new long[2]);
+        status[0] += sign;
+        status[1] += sign * s.totalCost;
+        long[] room = byRoomType.computeIfAbsent(s.roomType, k -> new long[2]);
+        room[0] += sign;
+        room[1] += sign * s.totalCost;
+        totalCount += sign;
+        totalRevenue += sign * s.totalCost;
+    }
+
+    public synchronized long getCount(String status) {
+        long[] v = byStatus.get(status);
+        return v == null ? 0 : v[0];
+    }
+
+    public synchronized long getRevenue(String status) {
+        long[] v = byStatus.get(status);
+        return v == null ? 0 : v[1];
+    }
+
+    public synchronized long getRoomTypeCount(String roomType) {
+        long[] v = byRoomType.get(roomType);
+        return v == null ? 0 : v[0];
+    }
+
+    public synchronized long getRoomTypeRevenue(String roomType) {
+        long[] v = byRoomType.get(roomType);
+        return v == null ? 0 : v[1];
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized long getTotalRevenue() {
+        return totalRevenue;
+    }
+}
@@ -0,0 +1,289 @@
+package resort;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * In-memory reservation store shared by all panels.
+ *
+ * Besides the primary map by reservation number it keeps secondary indexes
+ * by status, room type, check-in date, check-out date and guest name so
+ * common lookups don't have to scan every reservation.
+ *
+ * Reservations are mutable (e.g. setStatusManual), so callers that change a
+ * reservation in place must call update() afterwards to re-index it.
+ *
+ * Listeners are told about every insert, change and removal together with
+ * the indexed values before and after, which lets derived structures such
+ * as ReservationStats stay up to date without rescanning.
+ */
+public class ReservationStore {
+
+    private final HashMap<String, Reservation> byId = new HashMap<>();
+    private final HashMap<String, Set<String>> byStatus = new HashMap<>();
+    private final HashMap<String, Set<String>> byRoomType = new HashMap<>();
+    private final TreeMap<LocalDate, Set<String>> byCheckIn = new TreeMap<>();
+    private final TreeMap<LocalDate, Set<String>> byCheckOut = new TreeMap<>();
+    private final TreeMap<String, Set<String>> byGuestName = new TreeMap<>();
+
+    // What each reservation is currently indexed under, so it can be
+    // un-indexed after an in-place change
+    private final HashMap<String, Snapshot> indexed = new HashMap<>();
+
+    // Longest stay seen, bounds the check-in range scanned by staysBetween()
+    private long maxNights = 1;
+
+    // Day the auto-detected statuses were last indexed for
+    private LocalDate statusDay = StatusEngine.today();
+
+    private final List<Listener> listeners = new ArrayList<>();
+    private final ReservationStats stats = new ReservationStats();
+    private final RoomInventory inventory = new RoomInventory();
+    private final OccupancyCube cube = new OccupancyCube();
+
+    /**
+     * Notified, while the store is locked, after each change. before is null
+     * for an insert and after is null for a removal.
+     */
+    public interface Listener {
+        void reservationChanged(Reservation r, Snapshot before, Snapshot after);
+    }
+
+    public ReservationStore() {
+        listeners.add(stats);
+        listeners.add(inventory);
+        listeners.add(cube);
+    }
+
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fire(Reservation r, Snapshot before, Snapshot after) {
+        for (Listener l : listeners) {
+            l.reservationChanged(r, before, after);
+        }
+    }
+
+    /**
+     * The indexed values of a reservation at one point in time.
+     */
+    public static final class Snapshot {
+        public final String resNo, status, roomType, guestKey;
+        public final LocalDate checkIn, checkOut;
+        public final long totalCost;
+
+        Snapshot(Reservation r) {
+            this.resNo = r.getResNo();
+            this.status = r.getStatus();
+            this.roomType = r.getRoomType();
+            this.guestKey = guestKey(r.getName());
+            this.checkIn = r.getCheckIn();
+            this.checkOut = r.getCheckOut();
+            this.totalCost = r.getTotalCost();
+        }
+    }
+
+    // ── Mutations ────────────────────────────────────────────────────────
+
+    /** Insert or replace a reservation. */
+    public synchronized void put(Reservation r) {
+        byId.put(r.getResNo(), r);
+        Snapshot before = unindex(r.getResNo());
+        Snapshot after = index(r);
+        fire(r, before, after);
+    }
+
+    /** Re-index a reservation after it was changed in place. */
+    public synchronized void update(Reservation r) {
+        put(r);
+    }
+
+    public synchronized Reservation remove(String resNo) {
+        Reservation old = byId.remove(resNo);
+        if (old != null) {
+            fire(old, unindex(resNo), null);
+        }
+        return old;
+    }
+
+    /** Remove every reservation whose number is not in the given set. */
+    public synchronized void retainAll(Set<String> resNos) {
+        for (String resNo : new ArrayList<>(byId.keySet())) {
+            if (!resNos.contains(resNo)) {
+                remove(resNo);
+            }
+        }
+    }
+
+    private Snapshot index(Reservation r) {
+        Snapshot s = new Snapshot(r);
+        indexed.put(s.resNo, s);
+        add(byStatus, s.status, s.resNo);
+        add(byRoomType, s.roomType, s.resNo);
+        add(byCheckIn, s.checkIn, s.resNo);
+        add(byCheckOut, s.checkOut, s.resNo);
+        add(byGuestName, s.guestKey, s.resNo);
+        maxNights = Math.max(maxNights, r.getNights());
+        return s;
+    }
+
+    private Snapshot unindex(String resNo) {
+        Snapshot s = indexed.remove(resNo);
+        if (s == null) return null;
+        drop(byStatus, s.status, resNo);
+        drop(byRoomType, s.roomType, resNo);
+        drop(byCheckIn, s.checkIn, resNo);
+        drop(byCheckOut, s.checkOut, resNo);
+        drop(byGuestName, s.guestKey, resNo);
+        return s;
+    }
+
+    private static <K> void add(Map<K, Set<String>> index, K key, String resNo) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(resNo);
+    }
+
+    private static <K> void drop(Map<K, Set<String>> index, K key, String resNo) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(resNo);
+            if (ids.isEmpty()) index.remove(key);
+        }
+    }
+
+    private static String guestKey(String name) {
+        return name == null ? "" : name.trim().toLowerCase();
+    }
+
+    /**
+     * Auto-detected statuses only move on at midnight, and only for
+     * reservations that check in or check out on a day that has passed.
+     * Called by StatusEngine at midnight and defensively before status
+     * lookups.
+     */
+    public synchronized void advanceDay(LocalDate today) {
+        if (!today.isAfter(statusDay)) return;
+        LocalDate from = statusDay;
+        statusDay = today;
+        Set<String> due = new HashSet<>();
+        for (Set<String> ids : byCheckIn.subMap(from, false, today, true).values()) due.addAll(ids);
+        for (Set<String> ids : byCheckOut.subMap(from, false, today, true).values()) due.addAll(ids);
+        for (String resNo : due) {
+            Reservation r = byId.get(resNo);
+            if (r.isManualStatus()) continue;
+            Snapshot before = indexed.get(resNo);
+            if (!before.status.equals(r.getStatus())) {
+                unindex(resNo);
+                fire(r, before, index(r));
+            }
+        }
+    }
+
+    private void refreshStatusesIfDayChanged() {
+        advanceDay(StatusEngine.today());
+    }
+
+    // ── Lookups ──────────────────────────────────────────────────────────
+
+    /** Running per-status and per-room-type totals. */
+    public synchronized ReservationStats getStats() {
+        refreshStatusesIfDayChanged();
+        return stats;
+    }
+
+    /** Per-night room counts for availability checks. */
+    public RoomInventory getInventory() {
+        return inventory;
+    }
+
+    /** Per-day nights and revenue by room type and status, for occupancy reports. */
+    public synchronized OccupancyCube getOccupancyCube() {
+        refreshStatusesIfDayChanged();
+        return cube;
+    }
+
+    public synchronized Reservation get(String resNo) {
+        return byId.get(resNo);
+    }
+
+    public synchronized boolean containsKey(String resNo) {
+        return byId.containsKey(resNo);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /** A copy of all reservations, safe to iterate while the store changes. */
+    public synchronized List<Reservation> values() {
+        return new ArrayList<>(byId.values());
+    }
+
+    public synchronized List<Reservation> byStatus(String status) {
+        refreshStatusesIfDayChanged();
+        return resolve(byStatus.get(status));
+    }
+
+    public synchronized List<Reservation> byRoomType(String roomType) {
+        return resolve(byRoomType.get(roomType));
+    }
+
+    /** Reservations with the given status and room type, e.g. active Suites. */
+    public synchronized List<Reservation> byStatusAndRoomType(String status, String roomType) {
+        refreshStatusesIfDayChanged();
+        Set<String> a = byStatus.getOrDefault(status, Collections.emptySet());
+        Set<String> b = byRoomType.getOrDefault(roomType, Collections.emptySet());
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        List<Reservation> result = new ArrayList<>();
+        for (String resNo : smaller) {
+            if (larger.contains(resNo)) result.add(byId.get(resNo));
+        }
+        return result;
+    }
+
+    /** Reservations checking out between from and to, both inclusive. */
+    public synchronized List<Reservation> departingBetween(LocalDate from, LocalDate to) {
+        return resolveAll(byCheckOut.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * Reservations with at least one night from "from" through "to",
+     * inclusive.
+     */
+    public synchronized List<Reservation> staysBetween(LocalDate from, LocalDate to) {
+        List<Reservation> result = new ArrayList<>();
+        for (Set<String> ids : byCheckIn.subMap(from.minusDays(maxNights), true, to, true).values()) {
+            for (String resNo : ids) {
+                Reservation r = byId.get(resNo);
+                if (r.getCheckOut().isAfter(from)) result.add(r);
+            }
+        }
+        return result;
+    }
+
+    /** Reservations whose guest name starts with the given text (case-insensitive). */
+    public synchronized List<Reservation> findByGuestName(String prefix) {
+        String from = guestKey(prefix);
+        return resolveAll(byGuestName.subMap(from, true, from + Character.MAX_VALUE, false).values());
+    }
+
+    private List<Reservation> resolve(Set<String> ids) {
+        if (ids == null) return new ArrayList<>();
+        List<Reservation> result = new ArrayList<>(ids.size());
+        for (String resNo : ids) result.add(byId.get(resNo));
+        return result;
+    }
+
+    private List<Reservation> resolveAll(Collection<Set<String>> groups) {
+        List<Reservation> result = new ArrayList<>();
+        for (Set<String> ids : groups) {
+            for (String resNo : ids) result.add(byId.get(resNo));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package resort;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps the in-memory reservation store in step with the database.
+ *
+ * The first sync loads the hot working set (archived and cold stays are
+ * left in the database, see ReservationArchive); later syncs only fetch rows whose
+ * updated_at moved past the last watermark, plus tombstones for rows that
+ * were deleted, and merge them into the live store.
+ */
+public class ReservationSync {
+
+    // Re-read a little before the watermark so rows committed by a
+    // transaction that started before the last sync are not missed
+    private static final long OVERLAP_MS = 2000;
+
+    // Tombstones older than this are purged; a terminal that has not synced
+    // for longer falls back to a full reload
+    private static final long TOMBSTONE_RETENTION_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private Timestamp watermark = null;
+
+    /**
+     * Bring the store up to date. Returns the number of reservations added,
+     * changed or removed, or -1 if the database could not be reached.
+     */
+    public synchronized int sync(ReservationStore live) {
+        Timestamp now = DatabaseHandler.getDatabaseTime();
+        if (now == null) {
+            return -1;
+        }
+        if (watermark == null || now.getTime() - watermark.getTime() > TOMBSTONE_RETENTION_MS) {
+            return fullSync(live, now);
+        }
+
+        Timestamp since = new Timestamp(watermark.getTime() - OVERLAP_MS);
+        List<String> deleted = DatabaseHandler.loadDeletedSince(since);
+        List<Reservation> changed = DatabaseHandler.loadReservationsChangedSince(since);
+        if (deleted == null || changed == null) {
+            return -1;
+        }
+
+        // Deletes first: a number that was deleted and then re-used shows up
+        // in both lists and must end up present
+        int applied = 0;
+        for (String resNo : deleted) {
+            if (live.remove(resNo) != null) applied++;
+        }
+        for (Reservation r : changed) {
+            live.put(r);
+            applied++;
+        }
+        watermark = now;
+        if (applied > 0) {
+            System.out.println("✓ Delta sync: " + changed.size() + " changed, " + deleted.size() + " deleted");
+        }
+        return applied;
+    }
+
+    private int fullSync(ReservationStore live, Timestamp now) {
+        HashMap<String, Reservation> all = DatabaseHandler.loadAllReservations();
+        if (all == null) {
+            // Keep what we have; an empty result here would wipe the store
+            return -1;
+        }
+        live.retainAll(all.keySet());
+        for (Reservation r : all.values()) {
+            live.put(r);
+        }
+        watermark = now;
+        DatabaseHandler.purgeTombstones(new Timestamp(now.getTime() - TOMBSTONE_RETENTION_MS));
+        return all.size();
+    }
+
+    /** Forget the watermark so the next sync reloads everything. */
+    public synchronized void reset() {
+        watermark = null;
+    }
+}
@@ -0,0 +1,166 @@
+package resort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model for the All Bookings table, backed by the ReservationStore.
+ *
+ * Cells are read lazily from the reservations themselves. Store changes
+ * are turned into row-level insert, update and delete events instead of
+ * rebuilding the whole table, and the formatted cost is cached per row.
+ * Changes are applied on the event dispatch thread; large bursts (such as
+ * a full reload) collapse into a single data-changed event.
+ */
+public class ReservationTableModel extends AbstractTableModel implements ReservationStore.Listener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS =
+        {"ID", "Guest Name", "Room", "Check-In", "Check-Out", "Nights", "Status", "Cost (LKR)"};
+    private static final Class<?>[] COLUMN_TYPES =
+        {String.class, String.class, String.class, Object.class, Object.class, Long.class, String.class, String.class};
+
+    // Above this many queued changes one full refresh is cheaper than row events
+    private static final int BULK_THRESHOLD = 500;
+
+    // Only touched on the EDT
+    private final List<Reservation> rows = new ArrayList<>();
+    private final List<String> costText = new ArrayList<>();
+    private final HashMap<String, Integer> rowOf = new HashMap<>();
+
+    // Changes waiting to be applied on the EDT
+    private final List<Object[]> pending = new ArrayList<>();
+    private boolean drainScheduled = false;
+
+    public ReservationTableModel(ReservationStore store) {
+        synchronized (store) {
+            for (Reservation r : store.values()) {
+                append(r);
+            }
+            store.addListener(this);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_TYPES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Reservation r = rows.get(row);
+        switch (column) {
+            case 0: return r.getResNo();
+            case 1: return r.getName();
+            case 2: return r.getRoomType();
+            case 3: return r.getCheckIn();
+            case 4: return r.getCheckOut();
+            case 5: return r.getNights();
+            case 6: return r.getStatus();
+            case 7:
+                String cost = costText.get(row);
+                if (cost == null) {
+                    cost = String.format("%,d", r.getTotalCost());
+                    costText.set(row, cost);
+                }
+                return cost;
+            default: return null;
+        }
+    }
+
+    public Reservation getReservationAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public void reservationChanged(Reservation r, ReservationStore.Snapshot before, ReservationStore.Snapshot after) {
+        synchronized (pending) {
+            pending.add(new Object[]{r, after == null});
+            if (drainScheduled) return;
+            drainScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::drain);
+    }
+
+    private void drain() {
+        List<Object[]> changes;
+        synchronized (pending) {
+            changes = new ArrayList<>(pending);
+            pending.clear();
+            drainScheduled = false;
+        }
+        boolean bulk = changes.size() > BULK_THRESHOLD;
+        for (Object[] change : changes) {
+            Reservation r = (Reservation) change[0];
+            if ((Boolean) change[1]) {
+                delete(r.getResNo(), !bulk);
+            } else {
+                upsert(r, !bulk);
+            }
+        }
+        if (bulk) {
+            fireTableDataChanged();
+        }
+    }
+
+    private void append(Reservation r) {
+        rowOf.put(r.getResNo(), rows.size());
+        rows.add(r);
+        costText.add(null);
+    }
+
+    private void upsert(Reservation r, boolean notify) {
+        Integer row = rowOf.get(r.getResNo());
+        if (row == null) {
+            append(r);
+            if (notify) fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
+        } else {
+            rows.set(row, r);
+            costText.set(row, null);
+            if (notify) fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /** Remove by moving the last row into the gap, so no other rows shift. */
+    private void delete(String resNo, boolean notify) {
+        Integer row = rowOf.remove(resNo);
+        if (row == null) return;
+        int last = rows.size() - 1;
+        if (row != last) {
+            Reservation moved = rows.get(last);
+            rows.set(row, moved);
+            costText.set(row, costText.get(last));
+            rowOf.put(moved.getResNo(), row);
+        }
+        rows.remove(last);
+        costText.remove(last);
+        if (notify) {
+            fireTableRowsDeleted(last, last);
+            if (row != last) fireTableRowsUpdated(row, row);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package resort;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Command-line jobs that run without the desktop UI.
+ *
+ *   java resort.ResortCli import &lt;file.csv&gt; [--chunk=N]
+ *   java resort.ResortCli export &lt;file|-&gt; [--format=csv|json] [--from=yyyy-MM-dd] [--to=yyyy-MM-dd] [--status=S] [--report]
+ *   java resort.ResortCli folios &lt;dir&gt; --from=yyyy-MM-dd --to=yyyy-MM-dd [--status=S|--status=all] [--threads=N]
+ *   java resort.ResortCli occupancy --from=yyyy-MM-dd --to=yyyy-MM-dd [--roomType=T]
+ *   java resort.ResortCli forecast [--roomType=T]
+ *   java resort.ResortCli archive [--days=N] [--batch=N]
+ *   java resort.ResortCli reprice
+ *
+ * Uses the database when it is reachable, otherwise the local journal.
+ */
+public class ResortCli {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            System.exit(2);
+        }
+        int exitCode;
+        switch (args[0]) {
+            case "import":
+                exitCode = runImport(args);
+                break;
+            case "export":
+                exitCode = runExport(args);
+                break;
+            case "folios":
+                exitCode = runFolios(args);
+                break;
+            case "occupancy":
+                exitCode = runOccupancy(args);
+                break;
+            case "forecast":
+                exitCode = runForecast(args);
+                break;
+            case "archive":
+                exitCode = runArchive(args);
+                break;
+            case "reprice":
+                exitCode = runReprice();
+                break;
+            default:
+                usage();
+                exitCode = 2;
+        }
+        System.exit(exitCode);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java resort.ResortCli import <file.csv> [--chunk=N]");
+        System.err.println("       java resort.ResortCli export <file|-> [--format=csv|json] [--from=yyyy-MM-dd]"
+                + " [--to=yyyy-MM-dd] [--status=S] [--report]");
+        System.err.println("       java resort.ResortCli folios <dir> --from=yyyy-MM-dd --to=yyyy-MM-dd"
+                + " [--status=S|--status=all] [--threads=N]");
+        System.err.println("       java resort.ResortCli occupancy --from=yyyy-MM-dd --to=yyyy-MM-dd [--roomType=T]");
+        System.err.println("       java resort.ResortCli forecast [--roomType=T]");
+        System.err.println("       java resort.ResortCli archive [--days=N] [--batch=N]");
+        System.err.println("       java resort.ResortCli reprice");
+    }
+
+    private static int runImport(String[] args) {
+        if (args.length < 2) {
+            usage();
+            return 2;
+        }
+        Path file = Paths.get(args[1]);
+        int chunkSize = ReservationImporter.DEFAULT_CHUNK_SIZE;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].startsWith("--chunk=")) chunkSize = Math.max(1, Integer.parseInt(args[i].substring(8)));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            usage();
+            return 2;
+        }
+        if (!Files.isRegularFile(file)) {
+            System.err.println("ERROR: File not found: " + file);
+            return 1;
+        }
+
+        RateEngine.loadPlan(Constants.RATES_FILE);
+        boolean useDatabase = DatabaseConnection.testConnection();
+        ReservationStore reservations = null;
+        ReservationJournal journal = null;
+        try {
+            if (useDatabase) {
+                System.out.println("✓ Importing into DATABASE");
+            } else {
+                System.out.println("⚠ Database not available, importing into FILE storage");
+                reservations = new ReservationStore();
+                journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+            }
+            new ReservationImporter(file, chunkSize, useDatabase, reservations).run();
+            return 0;
+        } catch (ReservationJournal.LockedException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            return 1;
+        } catch (Exception e) {
+            System.err.println("ERROR: Import stopped: " + e.getMessage());
+            System.err.println("Run the same command again to resume after the last completed chunk.");
+            return 1;
+        } finally {
+            if (journal != null) journal.close();
+            if (useDatabase) {
+                AuditLogWriter.shutdown();
+                DatabaseConnection.closeConnection();
+            }
+        }
+    }
+
+    private static int runExport(String[] args) {
+        if (args.length < 2) {
+            usage();
+            return 2;
+        }
+        ReservationExporter.Format format = ReservationExporter.Format.CSV;
+        LocalDate from = null, to = null;
+        String status = null;
+        boolean report = false;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--format=")) format = ReservationExporter.Format.valueOf(arg.substring(9).toUpperCase());
+                else if (arg.startsWith("--from=")) from = LocalDate.parse(arg.substring(7));
+                else if (arg.startsWith("--to=")) to = LocalDate.parse(arg.substring(5));
+                else if (arg.startsWith("--status=")) status = arg.substring(9);
+                else if (arg.equals("--report")) report = true;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            usage();
+            return 2;
+        }
+
+        boolean toStdout = args[1].equals("-");
+        // Keep progress messages out of the exported data
+        if (toStdout) System.setOut(System.err);
+        boolean useDatabase = DatabaseConnection.testConnection();
+        ReservationStore reservations = null;
+        ReservationJournal journal = null;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(toStdout ? new FileOutputStream(FileDescriptor.out)
+                : new FileOutputStream(args[1]), StandardCharsets.UTF_8), 1 << 16)) {
+            if (report || !useDatabase) {
+                // Reports and FILE mode read the in-memory store
+                reservations = new ReservationStore();
+                if (useDatabase) {
+                    if (new ReservationSync().sync(reservations) < 0) {
+                        System.err.println("ERROR: Could not load reservations");
+                        return 1;
+                    }
+                } else {
+                    journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+                }
+            }
+            long start = System.currentTimeMillis();
+            if (report) {
+                ReservationExporter.exportReport(reservations.getStats(), out, format);
+            } else {
+                ReservationExporter exporter = new ReservationExporter(out, format, from, to, status);
+                long rows = useDatabase ? exporter.exportFromDatabase() : exporter.exportFromStore(reservations);
+                System.err.println("✓ Exported " + rows + " reservations in "
+                        + (System.currentTimeMillis() - start) + " ms");
+            }
+            return 0;
+        } catch (IOException | SQLException e) {
+            System.err.println("ERROR: Export failed: " + e.getMessage());
+            return 1;
+        } finally {
+            if (journal != null) journal.close();
+            if (useDatabase) {
+                AuditLogWriter.shutdown();
+                DatabaseConnection.closeConnection();
+            }
+        }
+    }
+
+    private static int runFolios(String[] args) {
+        if (args.length < 2) {
+            usage();
+            return 2;
+        }
+        LocalDate from = null, to = null;
+        String status = "Checked-Out";
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 2; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--from=")) from = LocalDate.parse(arg.substring(7));
+                else if (arg.startsWith("--to=")) to = LocalDate.parse(arg.substring(5));
+                else if (arg.startsWith("--status=")) status = arg.substring(9).equalsIgnoreCase("all") ? null : arg.substring(9);
+                else if (arg.startsWith("--threads=")) threads = Math.max(1, Integer.parseInt(arg.substring(10)));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            usage();
+            return 2;
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            System.err.println("ERROR: --from and --to are required, and --to must not be before --from");
+            return 2;
+        }
+
+        // Folios are written by the CLI only; keep AWT from looking for a display
+        System.setProperty("java.awt.headless", "true");
+        RateEngine.loadPlan(Constants.RATES_FILE);
+        ReservationStore reservations = new ReservationStore();
+        boolean useDatabase = DatabaseConnection.testConnection();
+        ReservationJournal journal = null;
+        try {
+            if (useDatabase) {
+                if (new ReservationSync().sync(reservations) < 0) {
+                    System.err.println("ERROR: Could not load reservations");
+                    return 1;
+                }
+            } else {
+                journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+            }
+            new FolioJob(reservations, Paths.get(args[1]), from, to, status, threads).run();
+            return 0;
+        } catch (ReservationJournal.LockedException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            return 1;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR: Folio run stopped: " + e.getMessage());
+            System.err.println("Run the same command again to carry on where it stopped.");
+            return 1;
+        } finally {
+            if (journal != null) journal.close();
+            if (useDatabase) {
+                AuditLogWriter.shutdown();
+                DatabaseConnection.closeConnection();
+            }
+        }
+    }
+
+    /** Per-night occupancy, ADR and RevPAR as CSV on stdout. */
+    private static int runOccupancy(String[] args) {
+        LocalDate from = null, to = null;
+        String roomType = null;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--from=")) from = LocalDate.parse(arg.substring(7));
+                else if (arg.startsWith("--to=")) to = LocalDate.parse(arg.substring(5));
+                else if (arg.startsWith("--roomType=")) roomType = arg.substring(11);
+            }
+        } catch (DateTimeParseException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            usage();
+            return 2;
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            System.err.println("ERROR: --from and --to are required, and --to must not be before --from");
+            return 2;
+        }
+
+        PrintStream csv = System.out;
+        // Keep progress messages out of the figures
+        System.setOut(System.err);
+        boolean useDatabase = DatabaseConnection.testConnection();
+        ReservationJournal journal = null;
+        try {
+            long start = System.currentTimeMillis();
+            OccupancyCube cube;
+            if (useDatabase) {
+                // No need for the whole store; the cube is built straight from the table
+                cube = OccupancyCube.buildFromDatabase(from, to);
+            } else {
+                ReservationStore reservations = new ReservationStore();
+                journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+                cube = reservations.getOccupancyCube();
+            }
+            System.err.println("✓ Occupancy cube built in " + (System.currentTimeMillis() - start) + " ms");
+
+            csv.println("night,arrivals,room_nights,available,occupancy_pct,revenue,adr,revpar");
+            for (OccupancyCube.Figures f : cube.daily(from, to, roomType)) {
+                csv.println(f.from + "," + f.arrivals + "," + f.roomNights + "," + f.availableNights + ","
+                        + String.format("%.1f", f.occupancy()) + "," + f.revenue + "," + f.adr() + "," + f.revPar());
+            }
+            OccupancyCube.Figures total = cube.range(from, to, roomType);
+            csv.println("total," + total.arrivals + "," + total.roomNights + "," + total.availableNights + ","
+                    + String.format("%.1f", total.occupancy()) + "," + total.revenue + "," + total.adr() + "," + total.revPar());
+            csv.flush();
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            return 2;
+        } catch (IOException | SQLException | IllegalStateException e) {
+            System.err.println("ERROR: Could not build occupancy figures: " + e.getMessage());
+            return 1;
+        } finally {
+            if (journal != null) journal.close();
+            if (useDatabase) {
+                AuditLogWriter.shutdown();
+                DatabaseConnection.closeConnection();
+            }
+        }
+    }
+
+    /** On-the-books and forecast rooms for the next 90 nights as CSV on stdout. */
+    private static int runForecast(String[] args) {
+        String roomType = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--roomType=")) roomType = args[i].substring(11);
+        }
+
+        PrintStream csv = System.out;
+        // Keep progress messages out of the figures
+        System.setOut(System.err);
+        ReservationStore reservations = new ReservationStore();
+        boolean useDatabase = DatabaseConnection.testConnection();
+        ReservationJournal journal = null;
+        try {
+            if (useDatabase) {
+                if (new ReservationSync().sync(reservations) < 0) {
+                    System.err.println("ERROR: Could not load reservations");
+                    return 1;
+                }
+            } else {
+                journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+            }
+            long start = System.currentTimeMillis();
+            BookingForecast forecast = new BookingForecast(reservations, useDatabase);
+            BookingForecast.PickupCurve curve = forecast.pickupCurve(null);
+            System.err.println("✓ Pickup curve from " + curve.getBuckets() + " months of bookings in "
+                    + (System.currentTimeMillis() - start) + " ms");
+
+            csv.println("night,days_out,rooms,on_the_books,on_the_books_pct,forecast,forecast_pct");
+            for (BookingForecast.Night n : forecast.forecast(curve, roomType)) {
+                csv.println(n.date + "," + n.leadDays + "," + n.rooms + "," + n.onTheBooks + ","
+                        + String.format("%.1f,%.1f,%.1f", n.onTheBooksPercent(), n.forecast, n.forecastPercent()));
+            }
+            csv.flush();
+            return 0;
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("ERROR: Could not build forecast: " + e.getMessage());
+            return 1;
+        } finally {
+            if (journal != null) journal.close();
+            if (useDatabase) {
+                AuditLogWriter.shutdown();
+                DatabaseConnection.closeConnection();
+            }
+        }
+    }
+
+    /** Move stays that checked out more than --days ago into the archive tables. */
+    private static int runArchive(String[] args) {
+        int days = Constants.ARCHIVE_AFTER_DAYS;
+        int batch = ReservationArchive.DEFAULT_BATCH_SIZE;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].startsWith("--days=")) days = Integer.parseInt(args[i].substring(7));
+                else if (args[i].startsWith("--batch=")) batch = Math.max(1, Integer.parseInt(args[i].substring(8)));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            usage();
+            return 2;
+        }
+        if (days < 1) {
+            System.err.println("ERROR: --days must be at least 1");
+            return 2;
+        }
+        if (!DatabaseConnection.testConnection()) {
+            System.err.println("ERROR: Archiving needs the database; FILE mode keeps everything in the journal");
+            return 1;
+        }
+        try {
+            if (!ReservationArchive.isAvailable()) {
+                System.err.println("ERROR: Create the archive tables first (see DATABASE_SETUP_GUIDE.md)");
+                return 1;
+            }
+            int moved = ReservationArchive.archive(days, batch);
+            System.out.println("✓ " + moved + " reservations checked out before "
+                    + ReservationArchive.cutoff(days) + " are now archived");
+            return 0;
+        } catch (SQLException e) {
+            System.err.println("ERROR: Archive run stopped: " + e.getMessage());
+            System.err.println("Batches already committed stay archived; run the same command again to carry on.");
+            return 1;
+        } finally {
+            AuditLogWriter.shutdown();
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    private static int runReprice() {
+        RateEngine.loadPlan(Constants.RATES_FILE);
+        ReservationStore reservations = new ReservationStore();
+        boolean useDatabase = DatabaseConnection.testConnection();
+        ReservationJournal journal = null;
+        try {
+            if (useDatabase) {
+                if (new ReservationSync().sync(reservations) < 0) {
+                    System.err.println("ERROR: Could not load reservations");
+                    return 1;
+                }
+            } else {
+                journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+            }
+            int changed = RateEngine.repriceFuture(reservations, useDatabase);
+            System.out.println("✓ Repriced " + changed + " future reservations");
+            return 0;
+        } catch (IOException e) {
+            System.err.println("ERROR: Could not open reservation journal: " + e.getMessage());
+            return 1;
+        } finally {
+            if (journal != null) journal.close();
+            if (useDatabase) {
+                AuditLogWriter.shutdown();
+                DatabaseConnection.closeConnection();
+            }
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package resort;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless server mode: one process holds the reservation store and the
+ * database connection pool, and front-desk terminals talk to it over a
+ * small HTTP/JSON API instead of each loading everything from MySQL.
+ *
+ * Started with "java resort.OceanResortSystem --server [--port=8085]
+ * [--bind=0.0.0.0]". Binds to the loopback interface unless --bind names
+ * another address. When the RESORT_API_TOKEN environment variable (or
+ * --token=) is set, every request must send "Authorization: Bearer
+ * <token>"; the server refuses to bind beyond loopback without one. Each
+ * request runs on its own virtual thread when the JVM has them (Java 21+),
+ * otherwise on a cached thread pool.
+ *
+ *   GET  /api/reservations?status=&roomType=&guest=&limit=
+ *   GET  /api/reservations/{id}
+ *   POST /api/reservations                  {"resNo", "name", "address", "contact",
+ *                                            "roomType", "checkIn", "checkOut"}
+ *   POST /api/reservations/{id}/checkout
+ *   POST /api/reservations/{id}/cancel
+ *   GET  /api/reservations/{id}/invoice     (falls back to the archive)
+ *   GET  /api/availability?roomType=&from=&to=
+ *   GET  /api/reports/summary
+ *   GET  /api/reports/occupancy?from=&to=&roomType=
+ *   GET  /api/archive?from=&to=&cursor=&limit=   (archived stays by check-out date)
+ */
+public class ResortServer {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final long HISTORY_CACHE_MS = 60_000;
+
+    private final ReservationStore reservations = new ReservationStore();
+    private final ReservationSync reservationSync = new ReservationSync();
+    private final ChangeFeed changeFeed = new ChangeFeed(reservations);
+    private ReservationService service;
+    private ReservationJournal journal = null;
+    private boolean useDatabase = false;
+    private HttpServer http;
+    private ExecutorService requestExecutor;
+    private byte[] apiToken = null;
+    // Occupancy history read from the database, reused for ranges inside
+    // the one it was read for until it is HISTORY_CACHE_MS old
+    private OccupancyCube historyCube = null;
+    private LocalDate historyFrom, historyTo;
+    private long historyReadAt;
+
+    public static void main(String[] args) {
+        int port = Constants.SERVER_PORT;
+        String bind = null;
+        String token = System.getenv("RESORT_API_TOKEN");
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring(7));
+            else if (arg.startsWith("--bind=")) bind = arg.substring(7);
+            else if (arg.startsWith("--token=")) token = arg.substring(8);
+        }
+        try {
+            ResortServer server = new ResortServer();
+            server.start(bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind), port, token);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-shutdown"));
+        } catch (IllegalStateException | ReservationJournal.LockedException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("ERROR: Could not start server on port " + port);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /** Listen on loopback only, with no token. */
+    public void start(int port) throws IOException {
+        start(InetAddress.getLoopbackAddress(), port, null);
+    }
+
+    /**
+     * Listen on the given address. token may be null or empty only for a
+     * loopback address, so the API is never reachable from other machines
+     * without it.
+     */
+    public void start(InetAddress bind, int port, String token) throws IOException {
+        boolean hasToken = token != null && !token.isEmpty();
+        if (!hasToken && !bind.isLoopbackAddress()) {
+            throw new IllegalStateException("Refusing to listen on " + bind.getHostAddress()
+                    + " without an API token (set RESORT_API_TOKEN)");
+        }
+        apiToken = hasToken ? token.getBytes(StandardCharsets.UTF_8) : null;
+        StatusEngine.watch(reservations);
+        RateEngine.loadPlan(Constants.RATES_FILE);
+
+        if (DatabaseConnection.testConnection()) {
+            useDatabase = true;
+            System.out.println("✓ Using DATABASE mode");
+            reservationSync.sync(reservations);
+            // Pick up changes made by desktop terminals still talking to MySQL directly
+            changeFeed.startTailing(reservationSync, reservations, Constants.CHANGE_POLL_MS);
+            ReservationArchive.startBackground();
+        } else {
+            System.out.println("⚠ Database not available, using FILE mode");
+            journal = ReservationJournal.open(Constants.JOURNAL_FILE, Constants.SNAPSHOT_FILE, reservations);
+        }
+        reservations.getInventory().reportOverbooking();
+        service = new ReservationService(reservations, useDatabase);
+
+        http = HttpServer.create(new InetSocketAddress(bind, port), 0);
+        http.createContext("/api/", this::handle);
+        requestExecutor = newRequestExecutor();
+        http.setExecutor(requestExecutor);
+        http.start();
+        System.out.println("✓ Server listening on http://" + http.getAddress().getHostString() + ":"
+                + http.getAddress().getPort() + "/api/" + (hasToken ? " (token required)" : ""));
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (http != null) http.stop(1);
+        if (requestExecutor != null) requestExecutor.shutdown();
+        changeFeed.stopTailing();
+        if (useDatabase) {
+            AuditLogWriter.shutdown();
+            DatabaseConnection.closeConnection();
+        } else if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /** Virtual thread per request where available (looked up reflectively to still build on Java 17). */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("✓ Serving requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("⚠ Virtual threads not available, using a thread pool");
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "server-request");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ── Routing ──────────────────────────────────────────────────────────
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            if (!authorized(ex)) {
+                sendError(ex, 401, "Missing or wrong API token");
+                return;
+            }
+            String method = ex.getRequestMethod();
+            String[] path = ex.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+            // path[0] is empty, path[1] is "api"
+            String resource = path.length > 2 ? path[2] : "";
+
+            if (resource.equals("reservations")) {
+                if (path.length == 3 && method.equals("GET")) {
+                    send(ex, 200, listReservations(query));
+                } else if (path.length == 3 && method.equals("POST")) {
+                    send(ex, 201, toJson(createReservation(Json.parseObject(readBody(ex)))));
+                } else if (path.length == 4 && method.equals("GET")) {
+                    send(ex, 200, toJson(service.find(path[3])));
+                } else if (path.length == 5 && method.equals("POST") && path[4].equals("checkout")) {
+                    send(ex, 200, toJson(service.checkOut(path[3])));
+                } else if (path.length == 5 && method.equals("POST") && path[4].equals("cancel")) {
+                    send(ex, 200, toJson(service.cancel(path[3])));
+                } else if (path.length == 5 && method.equals("GET") && path[4].equals("invoice")) {
+                    send(ex, 200, invoice(findForInvoice(path[3])));
+                } else {
+                    sendError(ex, 404, "No such endpoint");
+                }
+            } else if (resource.equals("archive") && path.length == 3 && method.equals("GET")) {
+                send(ex, 200, archivePage(query));
+            } else if (resource.equals("availability") && method.equals("GET")) {
+                send(ex, 200, availability(query));
+            } else if (resource.equals("reports") && path.length == 4 && path[3].equals("summary")
+                    && method.equals("GET")) {
+                send(ex, 200, summary());
+            } else if (resource.equals("reports") && path.length == 4 && path[3].equals("occupancy")
+                    && method.equals("GET")) {
+                send(ex, 200, occupancy(query));
+            } else {
+                sendError(ex, 404, "No such endpoint");
+            }
+        } catch (ReservationService.NotFoundException e) {
+            sendError(ex, 404, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(ex, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(ex, 409, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Request failed: " + ex.getRequestURI());
+            e.printStackTrace();
+            sendError(ex, 500, "Internal error");
+        } finally {
+            ex.close();
+        }
+    }
+
+    private Reservation createReservation(Map<String, String> body) {
+        return service.create(body.get("resNo"), body.get("name"), body.get("address"), body.get("contact"),
+                body.get("roomType"), parseDate(body.get("checkIn")), parseDate(body.get("checkOut")));
+    }
+
+    private String listReservations(Map<String, String> query) {
+        String status = query.get("status");
+        String roomType = query.get("roomType");
+        String guest = query.get("guest");
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_LIMIT;
+
+        List<Reservation> list;
+        if (guest != null) list = reservations.findByGuestName(guest);
+        else if (status != null && roomType != null) list = reservations.byStatusAndRoomType(status, roomType);
+        else if (status != null) list = reservations.byStatus(status);
+        else if (roomType != null) list = reservations.byRoomType(roomType);
+        else list = reservations.values();
+
+        StringBuilder sb = new StringBuilder("[");
+        int n = 0;
+        for (Reservation r : list) {
+            if (n == limit) break;
+            if (guest != null && status != null && !status.equals(r.getStatus())) continue;
+            if (guest != null && roomType != null && !roomType.equals(r.getRoomType())) continue;
+            if (n++ > 0) sb.append(',');
+            sb.append(toJson(r));
+        }
+        return sb.append(']').toString();
+    }
+
+    private String availability(Map<String, String> query) {
+        String roomType = query.get("roomType");
+        if (roomType == null) throw new IllegalArgumentException("roomType is required");
+        LocalDate from = parseDate(query.get("from"));
+        LocalDate to = parseDate(query.get("to"));
+        if (!to.isAfter(from)) throw new IllegalArgumentException("'to' must be after 'from'");
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("roomType", roomType);
+        fields.put("from", from.toString());
+        fields.put("to", to.toString());
+        fields.put("capacity", RoomInventory.capacityOf(roomType));
+        fields.put("available", reservations.getInventory().available(roomType, from, to));
+        return Json.object(fields);
+    }
+
+    /** A hot reservation, or in DATABASE mode an archived one, so old invoices can be reprinted. */
+    private Reservation findForInvoice(String resNo) {
+        try {
+            return service.find(resNo);
+        } catch (ReservationService.NotFoundException e) {
+            if (!useDatabase) throw e;
+            Reservation archived;
+            try {
+                archived = ReservationArchive.find(resNo);
+            } catch (SQLException sqlError) {
+                throw new RuntimeException("Archive lookup failed", sqlError);
+            }
+            if (archived == null) throw e;
+            return archived;
+        }
+    }
+
+    private String archivePage(Map<String, String> query) {
+        if (!useDatabase) throw new ReservationService.NotFoundException("No archive in FILE mode");
+        LocalDate from = parseDate(query.get("from"));
+        LocalDate to = parseDate(query.get("to"));
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : ReservationArchive.DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > DEFAULT_LIMIT) throw new IllegalArgumentException("limit must be 1-" + DEFAULT_LIMIT);
+        ReservationArchive.Page page;
+        try {
+            page = ReservationArchive.page(from, to, query.get("cursor"), limit);
+        } catch (SQLException e) {
+            throw new RuntimeException("Archive query failed", e);
+        }
+        StringBuilder rows = new StringBuilder("[");
+        for (Reservation r : page.rows) {
+            if (rows.length() > 1) rows.append(',');
+            rows.append(toJson(r));
+        }
+        rows.append(']');
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("reservations", new Json.Raw(rows.toString()));
+        fields.put("nextCursor", page.nextCursor);
+        return Json.object(fields);
+    }
+
+    private String invoice(Reservation r) {
+        long nights = r.getNights();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("resNo", r.getResNo());
+        fields.put("name", r.getName());
+        fields.put("contact", r.getContact());
+        fields.put("roomType", r.getRoomType());
+        fields.put("checkIn", r.getCheckIn().toString());
+        fields.put("checkOut", r.getCheckOut().toString());
+        fields.put("nights", nights);
+        fields.put("ratePerNight", r.getTotalCost() / nights);
+        fields.put("totalCost", r.getTotalCost());
+        fields.put("status", r.getStatus());
+        return Json.object(fields);
+    }
+
+    private String summary() {
+        ReservationStats stats = reservations.getStats();
+        Map<String, Object> byStatus = new LinkedHashMap<>();
+        for (String status : new String[]{"Upcoming", "Active", "Completed", "Checked-Out", "Cancelled"}) {
+            Map<String, Object> v = new LinkedHashMap<>();
+            v.put("count", stats.getCount(status));
+            v.put("revenue", stats.getRevenue(status));
+            byStatus.put(status, new Json.Raw(Json.object(v)));
+        }
+        Map<String, Object> byRoomType = new LinkedHashMap<>();
+        for (String roomType : new String[]{"Single", "Double", "Suite"}) {
+            Map<String, Object> v = new LinkedHashMap<>();
+            v.put("count", stats.getRoomTypeCount(roomType));
+            v.put("revenue", stats.getRoomTypeRevenue(roomType));
+            byRoomType.put(roomType, new Json.Raw(Json.object(v)));
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        // In DATABASE mode archived stays are not in the store
+        if (useDatabase) fields.put("checkOutsFrom", ReservationArchive.hotCutoff().toString());
+        fields.put("totalReservations", stats.getTotalCount());
+        fields.put("totalRevenue", stats.getTotalRevenue());
+        fields.put("byStatus", new Json.Raw(Json.object(byStatus)));
+        fields.put("byRoomType", new Json.Raw(Json.object(byRoomType)));
+        return Json.object(fields);
+    }
+
+    /**
+     * Occupancy %, ADR and RevPAR for the nights from..to inclusive, with a
+     * row per night. Ranges starting before the archive cutoff are counted
+     * from the database, archive included, and may be up to
+     * HISTORY_CACHE_MS behind.
+     */
+    private String occupancy(Map<String, String> query) {
+        String roomType = query.get("roomType");
+        LocalDate from = parseDate(query.get("from"));
+        LocalDate to = parseDate(query.get("to"));
+        if (to.isBefore(from)) throw new IllegalArgumentException("'to' must not be before 'from'");
+        if (to.toEpochDay() - from.toEpochDay() > 3660) throw new IllegalArgumentException("Range is limited to 10 years");
+        OccupancyCube cube = reservations.getOccupancyCube();
+        if (useDatabase && from.isBefore(ReservationArchive.hotCutoff())) {
+            try {
+                cube = historyCube(from, to);
+            } catch (SQLException e) {
+                throw new RuntimeException("Occupancy history could not be read", e);
+            }
+        }
+        StringBuilder days = new StringBuilder("[");
+        for (OccupancyCube.Figures day : cube.daily(from, to, roomType)) {
+            if (days.length() > 1) days.append(',');
+            days.append(figuresJson(day));
+        }
+        days.append(']');
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("roomType", roomType == null ? "All" : roomType);
+        fields.put("total", new Json.Raw(figuresJson(cube.range(from, to, roomType))));
+        fields.put("days", new Json.Raw(days.toString()));
+        return Json.object(fields);
+    }
+
+    /** A cube with every stay that has a night in from..to, read once per HISTORY_CACHE_MS. */
+    private synchronized OccupancyCube historyCube(LocalDate from, LocalDate to) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (historyCube == null || from.isBefore(historyFrom) || to.isAfter(historyTo)
+                || now - historyReadAt > HISTORY_CACHE_MS) {
+            historyCube = OccupancyCube.buildFromDatabase(from, to);
+            historyFrom = from;
+            historyTo = to;
+            historyReadAt = now;
+        }
+        return historyCube;
+    }
+
+    private static String figuresJson(OccupancyCube.Figures f) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("from", f.from.toString());
+        fields.put("to", f.to.toString());
+        fields.put("roomNights", f.roomNights);
+        fields.put("arrivals", f.arrivals);
+        fields.put("revenue", f.revenue);
+        fields.put("occupancy", Math.round(f.occupancy() * 10) / 10.0);
+        fields.put("adr", f.adr());
+        fields.put("revPar", f.revPar());
+        return Json.object(fields);
+    }
+
+    static String toJson(Reservation r) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("resNo", r.getResNo());
+        fields.put("name", r.getName());
+        fields.put("address", r.getAddress());
+        fields.put("contact", r.getContact());
+        fields.put("roomType", r.getRoomType());
+        fields.put("checkIn", r.getCheckIn().toString());
+        fields.put("checkOut", r.getCheckOut().toString());
+        fields.put("nights", r.getNights());
+        fields.put("totalCost", r.getTotalCost());
+        fields.put("status", r.getStatus());
+        return Json.object(fields);
+    }
+
+    // ── HTTP helpers ─────────────────────────────────────────────────────
+
+    /** True when no token is configured, or the request carries it as a Bearer token. */
+    private boolean authorized(HttpExchange ex) {
+        if (apiToken == null) return true;
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return false;
+        // Constant-time compare, so the token can't be guessed a byte at a time
+        return MessageDigest.isEqual(apiToken, header.substring(7).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LocalDate parseDate(String s) {
+        if (s == null) throw new IllegalArgumentException("Date is required (yyyy-MM-dd)");
+        return LocalDate.parse(s);
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> result = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return result;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            result.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange ex, int code, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(code, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange ex, int code, String message) throws IOException {
+        send(ex, code, Json.object(Collections.singletonMap("error", message)));
+    }
+}
@@ -0,0 +1,167 @@
+package resort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Rooms booked per room type per night, for availability checks.
+ *
+ * Each room type keeps an int counter per night in an array indexed by
+ * epoch day, so "how many Suites are free from 12 to 19 March" reads a
+ * handful of adjacent ints instead of scanning reservations. The counters
+ * follow ReservationStore changes; cancelled bookings don't hold a room.
+ *
+ * New bookings take a Hold first: the nights are checked and claimed in
+ * one step, so two saves racing for the last room cannot both succeed.
+ * The hold is released once the booking is in the store (which then
+ * counts it) or the save failed. The counters only know this terminal's
+ * store; in DATABASE mode DatabaseHandler.saveReservation counts again in
+ * MySQL so other terminals' bookings are seen too.
+ */
+public class RoomInventory implements ReservationStore.Listener {
+
+    private static final String CANCELLED = "Cancelled";
+
+    /** Nights claimed for a booking that is still being saved. */
+    public static final class Hold {
+        final String roomType;
+        final long from, to;
+
+        private Hold(String roomType, long from, long to) {
+            this.roomType = roomType;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /** Booked-room counters for one room type, indexed by epoch day - base. */
+    private static final class Nights {
+        long base;
+        int[] booked = new int[0];
+
+        int get(long day) {
+            long i = day - base;
+            return i < 0 || i >= booked.length ? 0 : booked[(int) i];
+        }
+
+        void add(long from, long to, int delta) {
+            ensure(from, to);
+            for (long day = from; day < to; day++) {
+                booked[(int) (day - base)] += delta;
+            }
+        }
+
+        int max(long from, long to) {
+            int max = 0;
+            long start = Math.max(from, base);
+            long end = Math.min(to, base + booked.length);
+            for (long day = start; day < end; day++) {
+                max = Math.max(max, booked[(int) (day - base)]);
+            }
+            return max;
+        }
+
+        /** Grow the array so [from, to) fits, with room to spare. */
+        private void ensure(long from, long to) {
+            if (booked.length == 0) {
+                base = from;
+                booked = new int[(int) Math.max(to - from, 366)];
+                return;
+            }
+            long newBase = Math.min(base, from);
+            long newEnd = Math.max(base + booked.length, to);
+            if (newBase == base && newEnd == base + booked.length) return;
+            if (newBase < base) newBase = Math.min(newBase, base - booked.length / 2);
+            if (newEnd > base + booked.length) newEnd = Math.max(newEnd, base + booked.length + booked.length / 2);
+            int[] grown = new int[(int) (newEnd - newBase)];
+            System.arraycopy(booked, 0, grown, (int) (base - newBase), booked.length);
+            booked = grown;
+            base = newBase;
+        }
+    }
+
+    private final HashMap<String, Nights> byRoomType = new HashMap<>();
+
+    /** Number of rooms of a type. Unknown types are not limited. */
+    public static int capacityOf(String roomType) {
+        switch (roomType) {
+            case "Single": return Constants.SINGLE_ROOMS;
+            case "Double": return Constants.DOUBLE_ROOMS;
+            case "Suite": return Constants.SUITE_ROOMS;
+            default: return Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public synchronized void reservationChanged(Reservation r, ReservationStore.Snapshot before,
+                                                ReservationStore.Snapshot after) {
+        if (before != null) apply(before, -1);
+        if (after != null) apply(after, 1);
+    }
+
+    private void apply(ReservationStore.Snapshot s, int sign) {
+        if (CANCELLED.equals(s.status)) return;
+        nights(s.roomType).add(s.checkIn.toEpochDay(), s.checkOut.toEpochDay(), sign);
+    }
+
+    private Nights nights(String roomType) {
+        return byRoomType.computeIfAbsent(roomType, k -> new Nights());
+    }
+
+    /** Rooms of the type booked on the night of the given date. */
+    public synchronized int bookedOn(String roomType, LocalDate night) {
+        Nights n = byRoomType.get(roomType);
+        return n == null ? 0 : n.get(night.toEpochDay());
+    }
+
+    /**
+     * Rooms of the type free for every night from check-in up to (not
+     * including) check-out.
+     */
+    public synchronized int available(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        Nights n = byRoomType.get(roomType);
+        int booked = n == null ? 0 : n.max(checkIn.toEpochDay(), checkOut.toEpochDay());
+        int capacity = capacityOf(roomType);
+        return capacity == Integer.MAX_VALUE ? capacity : Math.max(0, capacity - booked);
+    }
+
+    /**
+     * Claim one room of the type for the stay, or return null if some
+     * night is already full.
+     */
+    public synchronized Hold tryHold(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        if (available(roomType, checkIn, checkOut) <= 0) return null;
+        Hold hold = new Hold(roomType, checkIn.toEpochDay(), checkOut.toEpochDay());
+        nights(roomType).add(hold.from, hold.to, 1);
+        return hold;
+    }
+
+    public synchronized void release(Hold hold) {
+        if (hold != null) nights(hold.roomType).add(hold.from, hold.to, -1);
+    }
+
+    /** Nights on which more rooms of the type are booked than exist. */
+    public synchronized List<LocalDate> overbookedNights(String roomType) {
+        List<LocalDate> result = new ArrayList<>();
+        Nights n = byRoomType.get(roomType);
+        int capacity = capacityOf(roomType);
+        if (n == null) return result;
+        for (int i = 0; i < n.booked.length; i++) {
+            if (n.booked[i] > capacity) result.add(LocalDate.ofEpochDay(n.base + i));
+        }
+        return result;
+    }
+
+    /** Log any overbooked nights, e.g. from data entered before capacity checks existed. */
+    public void reportOverbooking() {
+        for (String roomType : new String[]{"Single", "Double", "Suite"}) {
+            List<LocalDate> nights = overbookedNights(roomType);
+            if (!nights.isEmpty()) {
+                System.err.println("WARNING: " + roomType + " overbooked on " + nights.size() + " night(s), first "
+                        + nights.get(0) + " (" + bookedOn(roomType, nights.get(0)) + "/" + capacityOf(roomType) + ")");
+            }
+        }
+    }
+}
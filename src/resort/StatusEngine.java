@@ -0,0 +1,92 @@
+package resort;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Day clock for auto-detected reservation statuses.
+ *
+ * A reservation's auto status (Upcoming / Active / Completed) only changes
+ * when the date passes its check-in or check-out day. Instead of asking the
+ * system clock on every getStatus() call, reservations compare against the
+ * current epoch day kept here, which only rolls over at midnight.
+ *
+ * At each midnight the watched stores re-evaluate just the reservations
+ * whose check-in or check-out falls on the days that passed.
+ */
+public class StatusEngine {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static volatile long currentDay;
+    private static volatile long nextMidnightMillis;
+
+    private static final List<ReservationStore> stores = new CopyOnWriteArrayList<>();
+    private static ScheduledExecutorService scheduler = null;
+
+    static {
+        roll();
+    }
+
+    /**
+     * Today's date as an epoch day. Allocation-free; only touches the date
+     * API when the cached day has run out.
+     */
+    public static long currentEpochDay() {
+        if (System.currentTimeMillis() >= nextMidnightMillis) {
+            roll();
+        }
+        return currentDay;
+    }
+
+    public static LocalDate today() {
+        return LocalDate.ofEpochDay(currentEpochDay());
+    }
+
+    private static synchronized void roll() {
+        LocalDate today = LocalDate.now(ZONE);
+        currentDay = today.toEpochDay();
+        nextMidnightMillis = today.plusDays(1).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Push status transitions into the store at every midnight so indexes,
+     * totals and listeners move on without waiting for the next lookup.
+     */
+    public static synchronized void watch(ReservationStore store) {
+        stores.add(store);
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "status-engine");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduleNextTick();
+        }
+    }
+
+    private static void scheduleNextTick() {
+        // A second past midnight, so the clock has certainly rolled over
+        long delay = Math.max(0, nextMidnightMillis - System.currentTimeMillis()) + 1000;
+        scheduler.schedule(StatusEngine::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static void tick() {
+        try {
+            LocalDate today = today();
+            for (ReservationStore store : stores) {
+                store.advanceDay(today);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: Failed to advance reservation statuses");
+            e.printStackTrace();
+        } finally {
+            scheduleNextTick();
+        }
+    }
+}